@@ -7,7 +7,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import br.com.messageApi.entities.Role;
 import br.com.messageApi.entities.User;
-import br.com.messageApi.repository.RoleRepository;
 import br.com.messageApi.repository.UserRepository;
 
 import java.util.Set;
@@ -15,14 +14,14 @@ import java.util.Set;
 @Configuration
 public class AdminUserConfig implements CommandLineRunner {
 
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     private UserRepository userRepository;
     private BCryptPasswordEncoder passwordEncoder;
 
-    public AdminUserConfig(RoleRepository roleRepository,
+    public AdminUserConfig(RoleRegistry roleRegistry,
                            UserRepository userRepository,
                            BCryptPasswordEncoder passwordEncoder) {
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
     }
@@ -31,8 +30,6 @@ public class AdminUserConfig implements CommandLineRunner {
     @Transactional
     public void run(String... args) throws Exception {
 
-        var roleAdmin = roleRepository.findByName(Role.Values.ADMIN.name());
-
         var userAdmin = userRepository.findByUsername("admin");
 
         userAdmin.ifPresentOrElse(
@@ -43,7 +40,7 @@ public class AdminUserConfig implements CommandLineRunner {
                     var user = new User();
                     user.setUsername("admin");
                     user.setPassword(passwordEncoder.encode("123"));
-                    user.setRoles(Set.of(roleAdmin));
+                    user.setRoles(Set.of(roleRegistry.reference(Role.Values.ADMIN)));
                     userRepository.save(user);
                 }
         );
@@ -0,0 +1,116 @@
+package br.com.messageApi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// JwtDecoder que guarda os tokens já verificados, evitando refazer a verificação RSA da assinatura a cada requisição
+// A chave é o SHA-256 do token e cada entrada vale até o menor entre o exp do token e o TTL configurado
+// Em todo acerto a expiração é verificada de novo, com a mesma tolerância de relógio (clockSkew) do JwtTimestampValidator
+// usado pelo decoder delegado, para que um token seja aceito ou recusado da mesma forma com ou sem cache
+// O cache é um ConcurrentHashMap limitado a max-size entradas
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final OAuth2Error EXPIRED = new OAuth2Error("invalid_token", "Jwt expired", null);
+
+    private final JwtDecoder delegate;
+    private final Duration ttl;
+    private final Duration clockSkew;
+    private final int maxSize;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingJwtDecoder(JwtDecoder delegate, Duration ttl, Duration clockSkew, int maxSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.clockSkew = clockSkew;
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("jwt.decoder.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("jwt.decoder.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        Gauge.builder("jwt.decoder.cache.size", cache, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    private record Entry(Jwt jwt, Instant validUntil) {
+    }
+
+    // Mesmo papel do JwtTimestampValidator.setClock; deve ser o mesmo relógio do validador do decoder delegado
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        var key = digest(token);
+        var now = clock.instant();
+        var entry = cache.get(key);
+
+        if (entry != null) {
+            if (now.isBefore(entry.validUntil())) {
+                hits.incrementAndGet();
+                return entry.jwt();
+            }
+
+            cache.remove(key, entry);
+
+            // Token expirado: responde como o NimbusJwtDecoder responderia, sem verificar a assinatura de novo
+            if (entry.jwt().getExpiresAt() != null && now.isAfter(entry.jwt().getExpiresAt().plus(clockSkew))) {
+                throw new JwtValidationException("Jwt expired", List.of(EXPIRED));
+            }
+        }
+
+        misses.incrementAndGet();
+        var jwt = delegate.decode(token);
+
+        var validUntil = now.plus(ttl);
+        if (jwt.getExpiresAt() != null && jwt.getExpiresAt().plus(clockSkew).isBefore(validUntil)) {
+            validUntil = jwt.getExpiresAt().plus(clockSkew);
+        }
+
+        if (cache.size() >= maxSize) {
+            evict(now);
+        }
+        cache.put(key, new Entry(jwt, validUntil));
+
+        return jwt;
+    }
+
+    // Remove as entradas vencidas; se ainda assim o cache estiver cheio, descarta tudo (os tokens são simplesmente verificados de novo)
+    private void evict(Instant now) {
+        cache.values().removeIf(entry -> !now.isBefore(entry.validUntil()));
+
+        if (cache.size() >= maxSize) {
+            cache.clear();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.messageApi.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+
+// JwtEncoder que assina com a chave atual do JwtKeyStore (RS256, ES256 ou EdDSA) e coloca o kid dela no cabeçalho
+// O NimbusJwtEncoder do Spring seleciona a chave por um JWKMatcher que não reconhece EdDSA nesta versão do nimbus-jose-jwt,
+// então a assinatura é feita diretamente com o JWSSigner da chave, criado uma única vez pelo JwtKeyStore
+public class JwkJwtEncoder implements JwtEncoder {
+
+    private final JwtKeyStore jwtKeyStore;
+
+    public JwkJwtEncoder(JwtKeyStore jwtKeyStore) {
+        this.jwtKeyStore = jwtKeyStore;
+    }
+
+    @Override
+    public Jwt encode(JwtEncoderParameters parameters) throws JwtEncodingException {
+        var signingKey = jwtKeyStore.signingKey();
+        var algorithm = signingKey.key().algorithm().getName();
+
+        var requested = parameters.getJwsHeader();
+        if (requested != null && !requested.getAlgorithm().getName().equals(algorithm)) {
+            throw new JwtEncodingException("Algoritmo " + requested.getAlgorithm().getName() + " diferente da chave atual: " + algorithm);
+        }
+
+        var header = new JWSHeader.Builder(signingKey.key().jwsAlgorithm())
+                .keyID(signingKey.key().keyId())
+                .type(JOSEObjectType.JWT)
+                .build();
+
+        var claims = parameters.getClaims();
+        var claimsSet = new JWTClaimsSet.Builder();
+        claims.getClaims().forEach((name, value) -> claimsSet.claim(name, toNimbus(value)));
+
+        var jwt = new SignedJWT(header, claimsSet.build());
+        try {
+            jwt.sign(signingKey.signer());
+        } catch (JOSEException e) {
+            throw new JwtEncodingException("Falha ao assinar o JWT", e);
+        }
+
+        return Jwt.withTokenValue(jwt.serialize())
+                .headers(headers -> headers.putAll(header.toJSONObject()))
+                .claims(values -> values.putAll(claims.getClaims()))
+                .build();
+    }
+
+    // O nimbus espera datas como Date (segundos desde a época) e coleções como List
+    private static Object toNimbus(Object value) {
+        if (value instanceof Instant instant) {
+            return Date.from(instant);
+        }
+        if (value instanceof URL url) {
+            return url.toExternalForm();
+        }
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        return value;
+    }
+}
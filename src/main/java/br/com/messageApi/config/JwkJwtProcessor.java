@@ -0,0 +1,62 @@
+package br.com.messageApi.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import java.text.ParseException;
+
+// Verifica JWT assinados com as chaves publicadas pelo JwtKeyStore (RS256, ES256 ou EdDSA), escolhendo a chave pelo kid
+// O seletor de chaves e a fábrica de verificadores do nimbus-jose-jwt usados pelo NimbusJwtDecoder não reconhecem EdDSA nesta versão,
+// então os verificadores são criados pelo JwtKeyStore; as claims continuam sendo validadas pelo NimbusJwtDecoder
+public class JwkJwtProcessor extends DefaultJWTProcessor<SecurityContext> {
+
+    private final JwtKeyStore jwtKeyStore;
+
+    public JwkJwtProcessor(JwtKeyStore jwtKeyStore) {
+        this.jwtKeyStore = jwtKeyStore;
+    }
+
+    @Override
+    public JWTClaimsSet process(SignedJWT signedJWT, SecurityContext context) throws BadJOSEException, JOSEException {
+        var header = signedJWT.getHeader();
+
+        if (header.getKeyID() == null) {
+            // Tokens emitidos antes dos kid: tenta as chaves publicadas do mesmo algoritmo
+            for (var key : jwtKeyStore.verificationKeys()) {
+                if (key.key().jwsAlgorithm().equals(header.getAlgorithm()) && signedJWT.verify(key.verifier())) {
+                    return claims(signedJWT);
+                }
+            }
+            throw new BadJWSException("Signed JWT rejected: Invalid signature");
+        }
+
+        var key = jwtKeyStore.verificationKey(header.getKeyID());
+        if (key == null) {
+            throw new BadJWSException("Signed JWT rejected: unknown kid " + header.getKeyID());
+        }
+
+        // Só aceita o algoritmo da chave, evitando confusão de algoritmos (ex.: alg=none ou HS256 com a chave pública)
+        if (!key.key().jwsAlgorithm().equals(header.getAlgorithm())) {
+            throw new BadJWSException("Signed JWT rejected: unexpected algorithm " + header.getAlgorithm());
+        }
+
+        if (!signedJWT.verify(key.verifier())) {
+            throw new BadJWSException("Signed JWT rejected: Invalid signature");
+        }
+
+        return claims(signedJWT);
+    }
+
+    private static JWTClaimsSet claims(SignedJWT signedJWT) throws BadJWSException {
+        try {
+            return signedJWT.getJWTClaimsSet();
+        } catch (ParseException e) {
+            throw new BadJWSException("Signed JWT rejected: invalid claims", e);
+        }
+    }
+}
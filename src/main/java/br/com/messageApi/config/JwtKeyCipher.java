@@ -0,0 +1,86 @@
+package br.com.messageApi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Cifra o jwk guardado em tb_jwt_keys (chaves privadas dos tokens de acesso e segredo HMAC de OTP) com AES-256-GCM
+// A chave de cifragem não fica no banco: vem de jwt.keys.encryption-key (base64 de 32 bytes), preenchida pela variável de ambiente
+// JWT_KEYS_ENCRYPTION_KEY (ou por um KMS/gerenciador de segredos que a injete no ambiente), igual em todos os nós
+// Quem tem acesso apenas ao banco ou a um backup não consegue assinar tokens
+// O kid entra como dado autenticado, então o valor cifrado de uma linha não pode ser copiado para outra
+// Formato gravado: "v1:" + base64(iv de 12 bytes + texto cifrado com a tag)
+@Component
+public class JwtKeyCipher {
+
+    private static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public JwtKeyCipher(@Value("${jwt.keys.encryption-key}") String encodedKey) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encodedKey.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("jwt.keys.encryption-key deve estar em base64", e);
+        }
+
+        if (bytes.length != 32) {
+            throw new IllegalStateException("jwt.keys.encryption-key deve ter 32 bytes (AES-256), tem " + bytes.length);
+        }
+        this.key = new SecretKeySpec(bytes, "AES");
+    }
+
+    public String encrypt(String kid, String jwk) {
+        var iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            var encrypted = cipher.doFinal(jwk.getBytes(StandardCharsets.UTF_8));
+
+            var out = ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array();
+            return PREFIX + Base64.getEncoder().encodeToString(out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Falha ao cifrar a chave " + kid, e);
+        }
+    }
+
+    // Linhas gravadas antes da cifragem (JSON puro) são devolvidas como estão; o JwtKeyStore as regrava cifradas
+    public String decrypt(String kid, String stored) {
+        if (!isEncrypted(stored)) {
+            return stored;
+        }
+
+        var bytes = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            var jwk = cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES);
+            return new String(jwk, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            // Chave de cifragem diferente da usada pelos outros nós, ou linha adulterada
+            throw new IllegalStateException("Não foi possível decifrar a chave " + kid + ": verifique jwt.keys.encryption-key", e);
+        }
+    }
+
+    public boolean isEncrypted(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+}
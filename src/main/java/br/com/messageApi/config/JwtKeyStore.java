@@ -0,0 +1,273 @@
+package br.com.messageApi.config;
+
+import br.com.messageApi.entities.JwtKey;
+import br.com.messageApi.repository.JwtKeyRepository;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Conjunto de chaves dos tokens de acesso, identificadas pelo kid e guardadas em tb_jwt_keys para que todos os nós
+// assinem e verifiquem com as mesmas chaves (sem sessão fixa em um nó)
+// Rotação: quando a chave mais nova passa de rotation-interval, um nó gera outra, que é publicada imediatamente mas só assina
+// depois de publish-delay, tempo para os demais nós a carregarem. A chave substituída continua verificando por retention
+// (vida máxima de um token de acesso) e depois é removida. Se dois nós rotacionarem juntos, as duas chaves são válidas
+// e a de ativação mais recente passa a assinar
+// Também guarda o segredo HMAC dos tokens de OTP, gerado uma única vez e compartilhado por todos os nós
+// O material privado é gravado cifrado (JwtKeyCipher); linhas antigas em texto puro são regravadas cifradas na leitura
+@Component
+public class JwtKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    private static final String OTP_KID = "otp";
+
+    private final JwtKeyRepository jwtKeyRepository;
+    private final JwtKeyCipher jwtKeyCipher;
+    private final JwtSigningKey initialKey;
+    private final String algorithm;
+    private final Duration rotationInterval;
+    private final Duration publishDelay;
+    private final Duration retention;
+    private final long minReloadIntervalMillis;
+
+    private final AtomicLong lastReload = new AtomicLong();
+
+    private volatile Keys keys = new Keys(List.of(), Map.of(), new JWKSet());
+    private volatile SecretKey otpKey;
+
+    public JwtKeyStore(JwtKeyRepository jwtKeyRepository,
+                       JwtKeyCipher jwtKeyCipher,
+                       JwtSigningKey initialKey,
+                       MeterRegistry meterRegistry,
+                       @Value("${jwt.algorithm:RS256}") String algorithm,
+                       @Value("${jwt.keys.rotation-interval:7d}") Duration rotationInterval,
+                       @Value("${jwt.keys.publish-delay:2m}") Duration publishDelay,
+                       @Value("${jwt.keys.retention:1h}") Duration retention,
+                       @Value("${jwt.keys.min-reload-interval:10s}") Duration minReloadInterval) {
+        this.jwtKeyRepository = jwtKeyRepository;
+        this.jwtKeyCipher = jwtKeyCipher;
+        this.initialKey = initialKey;
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.publishDelay = publishDelay;
+        this.retention = retention;
+        this.minReloadIntervalMillis = minReloadInterval.toMillis();
+
+        Gauge.builder("jwt.keys.published", this, store -> store.keys.byKid().size()).register(meterRegistry);
+    }
+
+    // Chave carregada de tb_jwt_keys, com o assinador e o verificador criados uma única vez
+    public record ActiveKey(JwtSigningKey key, JWSSigner signer, JWSVerifier verifier, Instant activatesAt) {
+    }
+
+    // Chaves ordenadas pela ativação, índice por kid e o JWKS público correspondente, trocados juntos a cada recarga
+    private record Keys(List<ActiveKey> ordered, Map<String, ActiveKey> byKid, JWKSet publicJwks) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // Primeira subida do cluster: a chave configurada (jwt.public.key/jwt.private.key ou jwt.signing-key) vira a primeira chave
+        // Como o kid é o thumbprint, nós com a mesma configuração gravam a mesma linha
+        if (jwtKeyRepository.findByPurposeOrderByActivatesAtAsc(JwtKey.Purpose.ACCESS_TOKEN).isEmpty()) {
+            var now = Instant.now();
+            insert(toEntity(initialKey, now, now));
+        }
+
+        otpKey = loadOtpKey();
+        reload();
+    }
+
+    // Chave que assina os novos tokens: a de ativação mais recente entre as já ativas
+    public ActiveKey signingKey() {
+        var ordered = keys.ordered();
+        var now = Instant.now();
+
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            if (!ordered.get(i).activatesAt().isAfter(now)) {
+                return ordered.get(i);
+            }
+        }
+
+        if (ordered.isEmpty()) {
+            throw new IllegalStateException("Nenhuma chave JWT disponível");
+        }
+        return ordered.get(0);
+    }
+
+    // Chave para verificar um token; um kid desconhecido pode ser uma chave recém-criada por outro nó, então recarrega (com limite de frequência)
+    public ActiveKey verificationKey(String kid) {
+        var key = keys.byKid().get(kid);
+
+        if (key == null && reloadIfStale()) {
+            key = keys.byKid().get(kid);
+        }
+
+        return key;
+    }
+
+    public List<ActiveKey> verificationKeys() {
+        return keys.ordered();
+    }
+
+    public JWKSet publicJwks() {
+        return keys.publicJwks();
+    }
+
+    public SecretKey otpKey() {
+        return otpKey;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.refresh-interval-ms:60000}", initialDelayString = "${jwt.keys.refresh-interval-ms:60000}")
+    public void refresh() {
+        reload();
+
+        var ordered = keys.ordered();
+        var newest = ordered.isEmpty() ? null : ordered.get(ordered.size() - 1);
+        var now = Instant.now();
+
+        if (newest != null
+                && newest.activatesAt().plus(rotationInterval).isAfter(now)
+                && newest.key().algorithm().getName().equals(algorithm)) {
+            return;
+        }
+
+        var key = JwtSigningKey.generate(algorithm);
+        insert(toEntity(key, now, newest == null ? now : now.plus(publishDelay)));
+        log.info("Nova chave JWT {} ({}) publicada, assina a partir de {}", key.keyId(), algorithm, now.plus(publishDelay));
+
+        reload();
+    }
+
+    private boolean reloadIfStale() {
+        var last = lastReload.get();
+        var now = System.currentTimeMillis();
+
+        if (now - last < minReloadIntervalMillis || !lastReload.compareAndSet(last, now)) {
+            return false;
+        }
+
+        reload();
+        return true;
+    }
+
+    private synchronized void reload() {
+        lastReload.set(System.currentTimeMillis());
+
+        var entities = jwtKeyRepository.findByPurposeOrderByActivatesAtAsc(JwtKey.Purpose.ACCESS_TOKEN);
+        var now = Instant.now();
+        var current = keys.byKid();
+
+        var ordered = new ArrayList<ActiveKey>(entities.size());
+        var byKid = new HashMap<String, ActiveKey>();
+        var publicJwks = new ArrayList<JWK>(entities.size());
+        var expired = new ArrayList<String>();
+
+        for (int i = 0; i < entities.size(); i++) {
+            var entity = entities.get(i);
+
+            // Substituída pela próxima chave há mais de retention: nenhum token válido pode ter sido assinado por ela
+            if (i + 1 < entities.size() && entities.get(i + 1).getActivatesAt().plus(retention).isBefore(now)) {
+                expired.add(entity.getKid());
+                continue;
+            }
+
+            var key = current.containsKey(entity.getKid()) ? current.get(entity.getKid()) : toActiveKey(entity);
+            if (key == null) {
+                continue;
+            }
+
+            ordered.add(key);
+            byKid.put(entity.getKid(), key);
+            publicJwks.add(key.key().publicJwk());
+        }
+
+        keys = new Keys(List.copyOf(ordered), Map.copyOf(byKid), new JWKSet(publicJwks));
+
+        if (!expired.isEmpty()) {
+            jwtKeyRepository.deleteByKids(expired);
+            log.info("Chaves JWT aposentadas removidas: {}", expired);
+        }
+    }
+
+    private ActiveKey toActiveKey(JwtKey entity) {
+        try {
+            var key = JwtSigningKey.parse(jwk(entity));
+            return new ActiveKey(key, key.signer(), key.verifier(), entity.getActivatesAt());
+        } catch (JOSEException | IllegalArgumentException e) {
+            log.error("Chave JWT {} inválida em tb_jwt_keys, ignorada", entity.getKid(), e);
+            return null;
+        }
+    }
+
+    private SecretKey loadOtpKey() {
+        var entity = jwtKeyRepository.findById(OTP_KID).orElse(null);
+
+        if (entity == null) {
+            try {
+                var secret = new OctetSequenceKeyGenerator(256).keyID(OTP_KID).generate();
+                var now = Instant.now();
+                insert(new JwtKey(OTP_KID, JwtKey.Purpose.OTP, "HS256", jwtKeyCipher.encrypt(OTP_KID, secret.toJSONString()), now, now));
+            } catch (JOSEException e) {
+                throw new IllegalStateException(e);
+            }
+
+            // Relê em vez de usar a chave gerada: outro nó pode ter gravado a sua primeiro
+            entity = jwtKeyRepository.findById(OTP_KID).orElseThrow();
+        }
+
+        try {
+            return OctetSequenceKey.parse(jwk(entity)).toSecretKey("HmacSHA256");
+        } catch (ParseException e) {
+            throw new IllegalStateException("Segredo de OTP inválido em tb_jwt_keys", e);
+        }
+    }
+
+    // Outro nó pode ter gravado o mesmo kid ao mesmo tempo; nesse caso vale a linha que já está no banco
+    private void insert(JwtKey entity) {
+        try {
+            jwtKeyRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Chave {} já gravada por outro nó", entity.getKid());
+        }
+    }
+
+    // JWK decifrado; uma linha ainda em texto puro (gravada antes da cifragem) é regravada cifrada
+    private String jwk(JwtKey entity) {
+        var jwk = jwtKeyCipher.decrypt(entity.getKid(), entity.getJwk());
+
+        if (!jwtKeyCipher.isEncrypted(entity.getJwk())) {
+            entity.setJwk(jwtKeyCipher.encrypt(entity.getKid(), jwk));
+            jwtKeyRepository.save(entity);
+            log.info("Chave {} em tb_jwt_keys regravada cifrada", entity.getKid());
+        }
+        return jwk;
+    }
+
+    private JwtKey toEntity(JwtSigningKey key, Instant createdAt, Instant activatesAt) {
+        return new JwtKey(key.keyId(), JwtKey.Purpose.ACCESS_TOKEN, key.algorithm().getName(),
+                jwtKeyCipher.encrypt(key.keyId(), key.jwk().toJSONString()), createdAt, activatesAt);
+    }
+}
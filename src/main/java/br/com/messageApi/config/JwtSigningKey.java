@@ -0,0 +1,121 @@
+package br.com.messageApi.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSSignerFactory;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+
+// Chave de assinatura dos JWT de acesso e o algoritmo correspondente: RS256 (RSA), ES256 (EC P-256) ou EdDSA (Ed25519)
+// O kid é o thumbprint da chave, então tokens assinados e a chave pública publicada sempre se referem à mesma chave
+public record JwtSigningKey(JWK jwk, JwsAlgorithm algorithm) {
+
+    // O SignatureAlgorithm do Spring Security não tem EdDSA; o NimbusJwtEncoder só usa o nome do algoritmo
+    public static final JwsAlgorithm EDDSA = () -> JWSAlgorithm.EdDSA.getName();
+
+    public static JwtSigningKey rsa(RSAPublicKey publicKey, RSAPrivateKey privateKey) {
+        try {
+            var jwk = new RSAKey.Builder(publicKey).privateKey(privateKey).keyIDFromThumbprint().build();
+            return new JwtSigningKey(jwk, SignatureAlgorithm.RS256);
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Lê uma chave privada no formato JWK (JSON); o algoritmo é definido pelo tipo da chave
+    public static JwtSigningKey parse(String json) {
+        try {
+            var jwk = JWK.parse(json);
+            var withKid = jwk.getKeyID() != null ? jwk : withThumbprintKid(jwk);
+            return new JwtSigningKey(withKid, algorithmOf(withKid));
+        } catch (ParseException | JOSEException e) {
+            throw new IllegalArgumentException("Chave JWK inválida", e);
+        }
+    }
+
+    // Gera um novo par de chaves para o algoritmo informado (RS256, ES256 ou EdDSA)
+    public static JwtSigningKey generate(String algorithm) {
+        try {
+            JWK jwk = switch (algorithm) {
+                case "RS256" -> new RSAKeyGenerator(RSAKeyGenerator.MIN_KEY_SIZE_BITS).keyIDFromThumbprint(true).generate();
+                case "ES256" -> new ECKeyGenerator(Curve.P_256).keyIDFromThumbprint(true).generate();
+                case "EdDSA" -> new OctetKeyPairGenerator(Curve.Ed25519).keyIDFromThumbprint(true).generate();
+                default -> throw new IllegalArgumentException("Algoritmo JWT não suportado para geração de chave: " + algorithm);
+            };
+            return new JwtSigningKey(jwk, algorithmOf(jwk));
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String keyId() {
+        return jwk.getKeyID();
+    }
+
+    public JWSAlgorithm jwsAlgorithm() {
+        return JWSAlgorithm.parse(algorithm.getName());
+    }
+
+    public JWK publicJwk() {
+        return jwk.toPublicJWK();
+    }
+
+    public JWSSigner signer() throws JOSEException {
+        return new DefaultJWSSignerFactory().createJWSSigner(jwk, jwsAlgorithm());
+    }
+
+    // A fábrica de verificadores do nimbus-jose-jwt não reconhece EdDSA nesta versão, então o verificador é escolhido pelo tipo da chave
+    public JWSVerifier verifier() throws JOSEException {
+        return switch (publicJwk()) {
+            case RSAKey rsaKey -> new RSASSAVerifier(rsaKey);
+            case ECKey ecKey -> new ECDSAVerifier(ecKey);
+            case OctetKeyPair okp -> new Ed25519Verifier(okp);
+            default -> throw new IllegalArgumentException("Tipo de chave JWT não suportado: " + jwk.getKeyType());
+        };
+    }
+
+    private static JwsAlgorithm algorithmOf(JWK jwk) {
+        if (jwk instanceof RSAKey) {
+            return SignatureAlgorithm.RS256;
+        }
+        if (jwk instanceof ECKey ecKey && Curve.P_256.equals(ecKey.getCurve())) {
+            return SignatureAlgorithm.ES256;
+        }
+        if (jwk instanceof OctetKeyPair okp && Curve.Ed25519.equals(okp.getCurve())) {
+            return EDDSA;
+        }
+        throw new IllegalArgumentException("Tipo de chave JWT não suportado: " + jwk.getKeyType() + " - use RSA, EC P-256 ou Ed25519");
+    }
+
+    private static JWK withThumbprintKid(JWK jwk) throws JOSEException {
+        var kid = jwk.computeThumbprint().toString();
+
+        if (jwk instanceof RSAKey rsaKey) {
+            return new RSAKey.Builder(rsaKey).keyID(kid).build();
+        }
+        if (jwk instanceof ECKey ecKey) {
+            return new ECKey.Builder(ecKey).keyID(kid).build();
+        }
+        if (jwk instanceof OctetKeyPair okp) {
+            return new OctetKeyPair.Builder(okp).keyID(kid).build();
+        }
+        return jwk;
+    }
+}
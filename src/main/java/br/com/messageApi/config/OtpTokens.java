@@ -0,0 +1,87 @@
+package br.com.messageApi.config;
+
+import br.com.messageApi.entities.UsedOtp;
+import br.com.messageApi.repository.UsedOtpRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+
+//Configuração do token JWT que fará parte do "esquecia a senha"
+//Envio de token para o email e validaçao na plataforma para alteração de senha
+//O segredo HMAC vem do JwtKeyStore e é o mesmo em todos os nós, então um token emitido por um nó é validado por qualquer outro
+//O JwtParser é criado uma única vez (é imutável e thread-safe) e cada token é verificado uma única vez
+//Cada token tem um jti; depois de validado com sucesso ele é gravado em tb_used_otps e não é aceito de novo em nenhum nó
+//(o insert de um jti repetido viola a chave primária). As linhas são removidas depois que o token expira
+@Component
+public class OtpTokens {
+
+    private static final long OTP_EXPIRATION_MINUTES = 5;
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final UsedOtpRepository usedOtpRepository;
+    private final Counter replays;
+
+    public OtpTokens(JwtKeyStore jwtKeyStore,
+                     UsedOtpRepository usedOtpRepository,
+                     MeterRegistry meterRegistry) {
+        this.key = jwtKeyStore.otpKey();
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.usedOtpRepository = usedOtpRepository;
+        this.replays = meterRegistry.counter("otp.replays");
+    }
+
+    public String createToken(String email, String otp) {
+
+        Instant now = Instant.now();
+        Instant expiration = now.plus(OTP_EXPIRATION_MINUTES, ChronoUnit.MINUTES);
+
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .claim("email", email)
+                .claim("otp", otp)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(expiration))
+                .signWith(key)
+                .compact();
+    }
+
+    // Verifica assinatura e expiração; lança JwtException se o token for inválido
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    // Marca o token como usado; false se ele já tinha sido usado, neste ou em outro nó
+    // Deve ser chamado fora de uma transação: a violação da chave primária marcaria a transação externa para rollback
+    public boolean markUsed(Claims claims) {
+        var jti = claims.getId();
+        if (jti == null || claims.getExpiration() == null) {
+            return false;
+        }
+
+        try {
+            usedOtpRepository.saveAndFlush(new UsedOtp(jti, claims.getExpiration().toInstant()));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            replays.increment();
+            return false;
+        }
+    }
+
+    // Remove os tokens usados que já expiraram (depois disso o parser já os rejeita)
+    @Scheduled(fixedDelayString = "${otp.used.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        usedOtpRepository.deleteExpired(Instant.now());
+    }
+}
@@ -0,0 +1,326 @@
+package br.com.messageApi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Limite de requisições (token bucket) nos endpoints públicos: /login, /users, /esqueci-a-senha/** e /validate
+// Cada rota tem um bucket por IP e, quando o usuário é conhecido na requisição (/login e /esqueci-a-senha), um por username
+// A rejeição (429 com Retry-After) acontece antes de qualquer acesso ao banco, BCrypt ou verificação de JWT
+// Os buckets ficam em um ConcurrentHashMap limitado a max-keys, cada bucket com o próprio lock; buckets já cheios de novo
+// são descartados periodicamente (recriar um bucket cheio não muda o comportamento). Se o mapa lotar, chaves novas passam a
+// consumir um bucket compartilhado por rota e tipo de limite (contadas em rate-limit.overflow), nunca ficam sem limite
+// A rota e o username vêm do servletPath/pathInfo (já decodificados e normalizados pelo container), para que variações como
+// %61, ;param ou // na URI não escapem do limite
+// Atrás de proxy, o IP vem de request.getRemoteAddr(): configure server.forward-headers-strategy para usar o X-Forwarded-For
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Corpo de /login acima disso não tem o username lido: o limite por IP continua valendo
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final int maxKeys;
+    private final List<Route> routes;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // Buckets compartilhados usados quando buckets chega a max-keys; fora do limite de chaves, no máximo dois por rota
+    private final ConcurrentHashMap<String, TokenBucket> overflowBuckets = new ConcurrentHashMap<>();
+    private final Counter overflow;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                           @Value("${rate-limit.login.per-ip:20/1m}") String loginPerIp,
+                           @Value("${rate-limit.login.per-username:5/1m}") String loginPerUsername,
+                           @Value("${rate-limit.users.per-ip:5/1m}") String usersPerIp,
+                           @Value("${rate-limit.otp.per-ip:5/1m}") String otpPerIp,
+                           @Value("${rate-limit.otp.per-username:3/10m}") String otpPerUsername,
+                           @Value("${rate-limit.validate.per-ip:30/1m}") String validatePerIp) {
+        this.objectMapper = objectMapper;
+        this.maxKeys = maxKeys;
+        this.routes = !enabled ? List.of() : List.of(
+                new Route("login", "/login", false, Limit.parse(loginPerIp), Limit.parse(loginPerUsername), meterRegistry),
+                new Route("users", "/users", false, Limit.parse(usersPerIp), null, meterRegistry),
+                new Route("otp", "/esqueci-a-senha/", true, Limit.parse(otpPerIp), Limit.parse(otpPerUsername), meterRegistry),
+                new Route("validate", "/validate", false, Limit.parse(validatePerIp), null, meterRegistry));
+
+        this.overflow = meterRegistry.counter("rate-limit.overflow");
+        Gauge.builder("rate-limit.buckets", buckets, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    // Limite no formato "quantidade/período", ex.: 20/1m (20 requisições por minuto, em rajada ou espalhadas)
+    record Limit(long capacity, long periodNanos) {
+
+        static Limit parse(String value) {
+            var parts = value.split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Limite inválido: '" + value + "', use o formato quantidade/período (ex.: 20/1m)");
+            }
+            return new Limit(Long.parseLong(parts[0].trim()), DurationStyle.detectAndParse(parts[1].trim()).toNanos());
+        }
+    }
+
+    private record Route(String name, String path, boolean prefix, Limit perIp, Limit perUsername,
+                         Counter allowed, Counter rejected) {
+
+        Route(String name, String path, boolean prefix, Limit perIp, Limit perUsername, MeterRegistry meterRegistry) {
+            this(name, path, prefix, perIp, perUsername,
+                    meterRegistry.counter("rate-limit.requests", "route", name, "result", "allowed"),
+                    meterRegistry.counter("rate-limit.requests", "route", name, "result", "rejected"));
+        }
+
+        boolean matches(String path) {
+            return prefix ? path.startsWith(this.path) : path.equals(this.path);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var route = route(request);
+
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        var waitNanos = acquire(route.name() + ":ip:", request.getRemoteAddr(), route.perIp());
+
+        if (waitNanos == 0 && route.perUsername() != null) {
+            if ("login".equals(route.name())) {
+                request = new CachedBodyRequest(request);
+            }
+
+            var username = username(route, request);
+            if (username != null) {
+                waitNanos = acquire(route.name() + ":user:", username, route.perUsername());
+            }
+        }
+
+        if (waitNanos > 0) {
+            route.rejected().increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
+            return;
+        }
+
+        route.allowed().increment();
+        chain.doFilter(request, response);
+    }
+
+    // Descarta os buckets que já voltaram à capacidade total
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        var now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        overflowBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private Route route(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+
+        var path = path(request);
+        for (var route : routes) {
+            if (route.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // Caminho decodificado, sem o contexto e sem parâmetros de path (;x), com barras repetidas reduzidas a uma
+    private static String path(HttpServletRequest request) {
+        var path = request.getServletPath();
+        if (request.getPathInfo() != null) {
+            path += request.getPathInfo();
+        }
+        return path.replaceAll("/{2,}", "/");
+    }
+
+    // 0 quando há token disponível; senão, o tempo até o próximo token
+    private long acquire(String prefix, String key, Limit limit) {
+        var now = System.nanoTime();
+        var bucket = buckets.get(prefix + key);
+
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                overflow.increment();
+                bucket = overflowBuckets.computeIfAbsent(prefix, k -> new TokenBucket(limit, now));
+            } else {
+                bucket = buckets.computeIfAbsent(prefix + key, k -> new TokenBucket(limit, now));
+            }
+        }
+
+        return bucket.tryConsume(now);
+    }
+
+    // Em minúsculas, como a coluna username (que não diferencia maiúsculas de minúsculas no MySQL)
+    private String username(Route route, HttpServletRequest request) {
+        if (route.prefix()) {
+            // /esqueci-a-senha/{usuario}
+            var username = path(request).substring(route.path().length());
+            return username.isEmpty() ? null : username.toLowerCase(Locale.ROOT);
+        }
+
+        if (request instanceof CachedBodyRequest cached && cached.body != null) {
+            try {
+                var node = objectMapper.readTree(cached.body).get("username");
+                return node == null || !node.isTextual() ? null : node.asText().toLowerCase(Locale.ROOT);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static final class TokenBucket {
+
+        private final long capacity;
+        private final double nanosPerToken;
+
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(Limit limit, long now) {
+            this.capacity = limit.capacity();
+            this.nanosPerToken = (double) limit.periodNanos() / limit.capacity();
+            this.tokens = limit.capacity();
+            this.lastRefill = now;
+        }
+
+        private synchronized long tryConsume(long now) {
+            refill(now);
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+                lastRefill = now;
+            }
+        }
+    }
+
+    // Lê o início do corpo de /login para extrair o username aqui e o devolve ao controller seguido do restante do corpo
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] head;
+        private final byte[] body;
+        private final ServletInputStream input;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            var original = request.getInputStream();
+            this.head = original.readNBytes(MAX_BODY_BYTES + 1);
+            this.body = head.length <= MAX_BODY_BYTES ? head : null;
+            // Corpo maior que o limite: o restante continua sendo lido do stream original
+            this.input = new CachedBodyInputStream(new ByteArrayInputStream(head), body == null ? original : null);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            var charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+
+    // Devolve primeiro os bytes já lidos (head) e depois, se houver, o restante do stream original (rest)
+    // Leitura não bloqueante: com o corpo inteiro em memória o listener é chamado na hora (onDataAvailable e onAllDataRead);
+    // com restante, o listener é registrado no stream original e lê head antes dele
+    private static final class CachedBodyInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream head;
+        private final ServletInputStream rest;
+
+        private CachedBodyInputStream(ByteArrayInputStream head, ServletInputStream rest) {
+            this.head = head;
+            this.rest = rest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = head.read();
+            return b != -1 || rest == null ? b : rest.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            var n = head.read(b, off, len);
+            return n != -1 || rest == null ? n : rest.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return head.available() == 0 && (rest == null || rest.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+            return head.available() > 0 || rest == null || rest.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            if (rest != null) {
+                rest.setReadListener(listener);
+                return;
+            }
+
+            try {
+                if (head.available() > 0) {
+                    listener.onDataAvailable();
+                }
+                listener.onAllDataRead();
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+    }
+}
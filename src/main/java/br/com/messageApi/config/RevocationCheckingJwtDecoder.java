@@ -0,0 +1,35 @@
+package br.com.messageApi.config;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.util.List;
+
+// Rejeita tokens revogados (logout ou revogação de todos os tokens do usuário)
+// Fica por fora do CachingJwtDecoder para que a revogação valha também para tokens que já estão no cache
+public class RevocationCheckingJwtDecoder implements JwtDecoder {
+
+    private static final OAuth2Error REVOKED = new OAuth2Error("invalid_token", "Jwt revoked", null);
+
+    private final JwtDecoder delegate;
+    private final TokenRevocationList tokenRevocationList;
+
+    public RevocationCheckingJwtDecoder(JwtDecoder delegate, TokenRevocationList tokenRevocationList) {
+        this.delegate = delegate;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        var jwt = delegate.decode(token);
+
+        if (tokenRevocationList.isRevoked(jwt)) {
+            throw new JwtValidationException("Jwt revoked", List.of(REVOKED));
+        }
+
+        return jwt;
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.messageApi.config;
+
+import br.com.messageApi.entities.Role;
+import br.com.messageApi.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Roles de tb_roles (inseridas pelo data.sql) carregadas uma única vez na inicialização, indexadas por Role.Values
+// As roles não mudam em tempo de execução, então o cadastro de usuários não precisa consultar tb_roles
+// @DependsOnDatabaseInitialization: o data.sql roda depois do JPA (spring.jpa.defer-datasource-initialization), e antes da carga
+@Component
+@DependsOnDatabaseInitialization
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Map<Role.Values, Long> roleIds;
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        var ids = new EnumMap<Role.Values, Long>(Role.Values.class);
+
+        for (var role : roleRepository.findAll()) {
+            for (var value : Role.Values.values()) {
+                if (value.name().equalsIgnoreCase(role.getName())) {
+                    ids.put(value, role.getRoleId());
+                }
+            }
+        }
+
+        for (var value : Role.Values.values()) {
+            if (!ids.containsKey(value)) {
+                throw new IllegalStateException("Role " + value + " não encontrada em tb_roles");
+            }
+        }
+
+        this.roleIds = Collections.unmodifiableMap(ids);
+    }
+
+    public long roleId(Role.Values role) {
+        return roleIds.get(role);
+    }
+
+    // Referência à role no contexto de persistência atual, sem SELECT; serve para associar a role a um usuário
+    public Role reference(Role.Values role) {
+        return entityManager.getReference(Role.class, roleId(role));
+    }
+}
@@ -1,14 +1,14 @@
 package br.com.messageApi.config;
 
-import io.jsonwebtoken.*;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -16,37 +16,45 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
-import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.Date;
-import java.util.Map;
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity // A anotação @EnableWebSecurity ativa a configuração de segurança da aplicação, permitindo que o Spring Security proteja os endpoints da API
 @EnableMethodSecurity // Habilita a segurança em métodos, permitindo o uso de anotações como @PreAuthorize e @PostAuthorize
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
     @Value("${jwt.public.key}")
     private RSAPublicKey publicKey;
 
     @Value("${jwt.private.key}")
     private RSAPrivateKey privateKey;
 
-    private static final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
-    private static final long OTP_EXPIRATION_MINUTES = 5;
+    // Algoritmo de assinatura dos tokens de acesso: RS256 (usa jwt.public.key/jwt.private.key), ES256 ou EdDSA
+    @Value("${jwt.algorithm:RS256}")
+    private String jwtAlgorithm;
+
+    // Chave privada em formato JWK para ES256/EdDSA; se não for informada, um par de chaves é gerado na inicialização
+    @Value("${jwt.signing-key:#{null}}")
+    private Resource signingKey;
 
     // Configuração de segurança da aplicação Spring Security
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter) throws Exception {
 
         http
                 .authorizeHttpRequests(authorize -> authorize
@@ -54,34 +62,74 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/validate").permitAll()
                         .requestMatchers(HttpMethod.POST, "/users").permitAll()
                         .requestMatchers(HttpMethod.POST, "/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/token/refresh").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
                         .anyRequest().authenticated())
+                .logout(logout -> logout.disable()) // O logout é feito pelo TokenController (POST /logout), revogando o token
                 .csrf(csrf -> csrf.disable()) // Desabilita o CSRF, pois não é necessário para APIs REST, em ambiente de produção deve ser habilitado
                 .cors(cors -> cors.disable()) // Desabilita o CORS apenas localmente
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults())) // Configura o servidor de recursos OAuth2 para usar JWT
-                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)); // Define a política de sessão como sem estado (stateless), ou seja, não armazena informações de sessão no servidor
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Define a política de sessão como sem estado (stateless), ou seja, não armazena informações de sessão no servidor
+                .addFilterBefore(rateLimitFilter, BearerTokenAuthenticationFilter.class); // Limite de requisições nos endpoints públicos, antes de qualquer verificação de token
 
         return http.build();
     }
 
+    // O RateLimitFilter roda dentro da cadeia do Spring Security; sem isso o Spring Boot também o registraria como filtro do servlet
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        var registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // Chave de assinatura configurada, usada pelo JwtKeyStore como primeira chave quando tb_jwt_keys ainda está vazia
+    @Bean
+    public JwtSigningKey jwtSigningKey() throws IOException {
+        if ("RS256".equals(jwtAlgorithm)) {
+            return JwtSigningKey.rsa(publicKey, privateKey);
+        }
+
+        JwtSigningKey key;
+        if (signingKey != null) {
+            key = JwtSigningKey.parse(signingKey.getContentAsString(StandardCharsets.UTF_8));
+        } else {
+            log.warn("jwt.signing-key não informado: gerando uma chave {} temporária, tokens não sobrevivem a reinicializações", jwtAlgorithm);
+            key = JwtSigningKey.generate(jwtAlgorithm);
+        }
+
+        if (!key.algorithm().getName().equals(jwtAlgorithm)) {
+            throw new IllegalStateException("jwt.signing-key é uma chave " + key.algorithm().getName() + ", mas jwt.algorithm=" + jwtAlgorithm);
+        }
+        return key;
+    }
+
     // Configuração do JWT Decoder, que é responsável por decodificar o token JWT com a biblioteca Nimbus
     // O JWT Decoder é usado para validar o token JWT recebido na requisição e extrair as informações contidas nele
+    // O NimbusJwtDecoder fica atrás do CachingJwtDecoder, que reaproveita os tokens já verificados até o exp (ou o TTL do cache)
+    // Por fora de tudo, o RevocationCheckingJwtDecoder rejeita os tokens revogados (logout)
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(publicKey).build();
+    public JwtDecoder jwtDecoder(JwtKeyStore jwtKeyStore,
+                                 TokenRevocationList tokenRevocationList,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${jwt.decoder.clock-skew:60s}") Duration clockSkew,
+                                 @Value("${jwt.decoder.cache.ttl:5m}") Duration cacheTtl,
+                                 @Value("${jwt.decoder.cache.max-size:10000}") int cacheMaxSize) {
+        // O decoder verifica com a chave publicada indicada pelo kid do token, aceitando apenas o algoritmo dessa chave
+        // A tolerância de relógio do exp/nbf é a mesma no validador e nos acertos do cache
+        var nimbusJwtDecoder = new NimbusJwtDecoder(new JwkJwtProcessor(jwtKeyStore));
+        nimbusJwtDecoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(new JwtTimestampValidator(clockSkew)));
+        var cachingJwtDecoder = new CachingJwtDecoder(nimbusJwtDecoder, cacheTtl, clockSkew, cacheMaxSize, meterRegistry);
+        return new RevocationCheckingJwtDecoder(cachingJwtDecoder, tokenRevocationList);
     }
 
 
     // Configuração do JWT Encoder, que é responsável por criar o token JWT
     // O JWT Encoder é usado para assinar o token JWT com a chave privada, garantindo que o token seja autêntico e não tenha sido alterado
     @Bean
-    public JwtEncoder jwtEncoder() {
-        // O JWK é usado para assinar o token JWT e garantir sua autenticidade
-        JWK jwk = new RSAKey.Builder(this.publicKey).privateKey(privateKey).build(); // Cria um JWK (JSON Web Key) com a chave pública e privada
-
-        // O JWKSet é usado para armazenar um conjunto de chaves públicas e privadas, permitindo que o servidor valide e assine tokens JWT
-        var jwks = new ImmutableJWKSet<>(new JWKSet(jwk));// Cria um JWKSet (JSON Web Key Set) com o JWK criado anteriormente
-
-        return new NimbusJwtEncoder(jwks);// Cria um JwtEncoder com o JWKSet criado anteriormente
+    public JwtEncoder jwtEncoder(JwtKeyStore jwtKeyStore) {
+        // A chave atual do JwtKeyStore é usada para assinar o token JWT e garantir sua autenticidade
+        return new JwkJwtEncoder(jwtKeyStore);
     }
 
     // Configuração do BCryptPasswordEncoder, que é responsável por codificar senhas usando o algoritmo BCrypt
@@ -91,41 +139,17 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
-    //Configuração do token JWT que fará parte do "esquecia a senha"
-    //Envio de token para o email e validaçao na plataforma para alteração de senha
-    public static String createToken(String email, String otp) {
-
-        Instant now = Instant.now();
-        Instant expiration = now.plus(OTP_EXPIRATION_MINUTES, ChronoUnit.MINUTES);
-
-        return Jwts.builder()
-                .claim("email", email)
-                .claim("otp", otp)
-                .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(expiration))
-                .signWith(SECRET_KEY)
-                .compact();
-    }
-
-    public static Map<String, Object> parseToken(String token) {
-        Jws<Claims> jws = Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token);
-
-        return jws.getBody();
-    }
-
-    public static boolean isTokenValid(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
-        }
+    // PasswordEncoder usado nos endpoints (/login e /users): o mesmo BCrypt, mas executado no pool limitado do BoundedPasswordEncoder
+    // para que o hash de senhas não ocupe as threads das requisições. O close() do bean encerra o pool
+    @Bean
+    @Primary
+    public PasswordEncoder passwordEncoder(BCryptPasswordEncoder bCryptPasswordEncoder,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${security.password-hashing.threads:0}") int threads,
+                                           @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password-hashing.timeout:5s}") Duration timeout) {
+        var poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(bCryptPasswordEncoder, poolSize, queueCapacity, timeout, meterRegistry);
     }
 
 }
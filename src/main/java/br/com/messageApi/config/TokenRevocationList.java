@@ -0,0 +1,149 @@
+package br.com.messageApi.config;
+
+import br.com.messageApi.entities.TokenRevocation;
+import br.com.messageApi.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tokens de acesso revogados antes do exp (logout por jti, ou todos os tokens de um usuário)
+// As revogações ficam em tb_token_revocations e cada nó mantém uma cópia em memória, recarregada a cada refresh-interval
+// Na frente da cópia fica um filtro de Bloom: no caso comum (token não revogado) a verificação custa só alguns hashes,
+// sem consulta ao mapa nem ao banco. O filtro não remove entradas, então é reconstruído a cada recarga só com as revogações
+// ainda vigentes; uma revogação deixa de existir quando nenhum token afetado pode mais ser válido
+@Component
+public class TokenRevocationList {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration userRevocationTtl;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile Revocations revocations;
+
+    private final Counter bloomNegatives;
+    private final Counter falsePositives;
+    private final Counter revokedHits;
+
+    public TokenRevocationList(TokenRevocationRepository tokenRevocationRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${jwt.revocation.user-revocation-ttl:1h}") Duration userRevocationTtl,
+                               @Value("${jwt.revocation.bloom.expected-entries:100000}") int expectedEntries,
+                               @Value("${jwt.revocation.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.userRevocationTtl = userRevocationTtl;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.bloomNegatives = meterRegistry.counter("jwt.revocation.checks", "result", "bloom_negative");
+        this.falsePositives = meterRegistry.counter("jwt.revocation.checks", "result", "false_positive");
+        this.revokedHits = meterRegistry.counter("jwt.revocation.checks", "result", "revoked");
+        Gauge.builder("jwt.revocation.entries", this, list -> list.revocations.tokens().size() + list.revocations.users().size())
+                .register(meterRegistry);
+    }
+
+    // jti -> exp do token; id do usuário -> instante antes do qual os tokens dele foram revogados
+    private record Revocations(BloomFilter bloom, Map<String, Instant> tokens, Map<String, Instant> users) {
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    // Logout: revoga apenas este token, até o exp dele
+    public synchronized void revokeToken(String jti, Instant expiresAt) {
+        tokenRevocationRepository.save(new TokenRevocation(jti, TokenRevocation.Type.TOKEN, null, expiresAt));
+
+        revocations.tokens().put(jti, expiresAt);
+        revocations.bloom().add(tokenKey(jti));
+    }
+
+    // Revoga todos os tokens do usuário emitidos até agora; o iat tem precisão de segundos, então arredonda para o próximo segundo
+    public synchronized void revokeUser(UUID userId) {
+        var revokedBefore = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        var id = userId.toString();
+
+        tokenRevocationRepository.save(new TokenRevocation(id, TokenRevocation.Type.USER, revokedBefore,
+                revokedBefore.plus(userRevocationTtl)));
+
+        revocations.users().put(id, revokedBefore);
+        revocations.bloom().add(userKey(id));
+    }
+
+    public boolean isRevoked(Jwt jwt) {
+        var current = revocations;
+        var jti = jwt.getId();
+        var subject = jwt.getSubject();
+        var candidate = false;
+
+        if (jti != null && current.bloom().mightContain(tokenKey(jti))) {
+            candidate = true;
+            if (current.tokens().containsKey(jti)) {
+                revokedHits.increment();
+                return true;
+            }
+        }
+
+        if (subject != null && current.bloom().mightContain(userKey(subject))) {
+            candidate = true;
+            var revokedBefore = current.users().get(subject);
+            if (revokedBefore != null && (jwt.getIssuedAt() == null || jwt.getIssuedAt().isBefore(revokedBefore))) {
+                revokedHits.increment();
+                return true;
+            }
+        }
+
+        if (candidate) {
+            falsePositives.increment();
+        } else {
+            bloomNegatives.increment();
+        }
+        return false;
+    }
+
+    // Traz as revogações feitas em outros nós e descarta as vencidas (do filtro, dos mapas e do banco)
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:10000}", initialDelayString = "${jwt.revocation.refresh-interval-ms:10000}")
+    public synchronized void reload() {
+        var now = Instant.now();
+        var active = tokenRevocationRepository.findByExpiresAtAfter(now);
+
+        var bloom = new BloomFilter(Math.max(expectedEntries, active.size() * 2), falsePositiveRate);
+        var tokens = new ConcurrentHashMap<String, Instant>();
+        var users = new ConcurrentHashMap<String, Instant>();
+
+        for (var revocation : active) {
+            if (revocation.getType() == TokenRevocation.Type.TOKEN) {
+                tokens.put(revocation.getId(), revocation.getExpiresAt());
+                bloom.add(tokenKey(revocation.getId()));
+            } else {
+                users.put(revocation.getId(), revocation.getRevokedBefore());
+                bloom.add(userKey(revocation.getId()));
+            }
+        }
+
+        revocations = new Revocations(bloom, tokens, users);
+
+        tokenRevocationRepository.deleteExpired(now);
+    }
+
+    private static String tokenKey(String jti) {
+        return "t:" + jti;
+    }
+
+    private static String userKey(String userId) {
+        return "u:" + userId;
+    }
+}
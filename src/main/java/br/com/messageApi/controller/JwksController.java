@@ -0,0 +1,33 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.config.JwtKeyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+public class JwksController {
+
+    private final JwtKeyStore jwtKeyStore;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyStore jwtKeyStore,
+                          @Value("${jwt.keys.refresh-interval-ms:60000}") long refreshIntervalMillis) {
+        this.jwtKeyStore = jwtKeyStore;
+        this.cacheControl = CacheControl.maxAge(Duration.ofMillis(refreshIntervalMillis)).cachePublic();
+    }
+
+    // Chaves públicas de todos os tokens de acesso ainda válidos (inclusive a próxima chave da rotação), no formato JWKS
+    // Serviços externos podem validar os tokens com elas; o cache do cliente dura o mesmo que o intervalo de recarga das chaves
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .body(jwtKeyStore.publicJwks().toJSONObject(true));
+    }
+}
@@ -1,33 +1,51 @@
 package br.com.messageApi.controller;
 
+import br.com.messageApi.service.FeedBroadcaster;
 import br.com.messageApi.service.MessageService;
+import br.com.messageApi.service.MessageWriteBehind;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import br.com.messageApi.dto.BatchMessagesResponse;
 import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.dto.DeleteMessagesResponse;
+import br.com.messageApi.dto.FeedCursor;
 import br.com.messageApi.dto.FeedDto;
-import br.com.messageApi.entities.Role;
-import br.com.messageApi.entities.Message;
-import br.com.messageApi.repository.MessageRepository;
-import br.com.messageApi.repository.UserRepository;
+import br.com.messageApi.dto.MessageAcceptedDto;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
 public class MessageController {
 
-    private final MessageRepository messageRepository;
-    private final UserRepository userRepository;
     private final MessageService messageService;
+    private final FeedBroadcaster feedBroadcaster;
+    private final MessageWriteBehind writeBehind;
 
-    public MessageController(MessageRepository messageRepository,
-                             UserRepository userRepository, MessageService messageService) {
-        this.messageRepository = messageRepository;
-        this.userRepository = userRepository;
+    @Value("${messages.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${messages.delete.max-ids:500}")
+    private int maxDeleteIds;
+
+    public MessageController(MessageService messageService,
+                             FeedBroadcaster feedBroadcaster,
+                             MessageWriteBehind writeBehind) {
         this.messageService = messageService;
+        this.feedBroadcaster = feedBroadcaster;
+        this.writeBehind = writeBehind;
     }
 
     // O método feed é responsável por retornar as mensagens do feed
@@ -40,48 +58,140 @@ public class MessageController {
     // O método retorna um ResponseEntity com o FeedDto e o status HTTP 200 (OK)
     // O método também usa o JwtAuthenticationToken para autenticar o usuário que está fazendo a solicitação e se tem a permissão de admin para acessar o feed
     // Se o usuário não tiver a permissão de admin, o método retorna um ResponseEntity com o status HTTP 403 (Forbidden)
+    // Modo cursor: quando o parâmetro cursor é informado (valor de nextCursor da resposta anterior) a página é buscada por keyset,
+    // sem OFFSET e sem COUNT(*). Um cursor vazio inicia o modo cursor pela primeira página
+    // includeTotals=false dispensa o COUNT(*) também no modo por número de página
+    // GET condicional: a resposta leva um ETag calculado sem carregar a página; se o cliente enviar o mesmo valor em If-None-Match
+    // e nada mudou no feed, o retorno é 304 (Not Modified) sem corpo
     @GetMapping("/feed")
     public FeedDto feed(@RequestParam(value = "page", defaultValue = "0") int page,
-                        @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
+                        @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
+                        @RequestParam(value = "cursor", required = false) String cursor,
+                        @RequestParam(value = "includeTotals", defaultValue = "true") boolean includeTotals,
+                        WebRequest request) {
+
+        if (request.checkNotModified(messageService.feedETag(page, pageSize, cursor, includeTotals))) {
+            return null;
+        }
+
+        if (cursor != null) {
+            return messageService.listarMensagensPorCursor(decodeCursor(cursor), pageSize);
+        }
 
-        var retorno = messageService.listarTodasMensagens(page, pageSize);
+        var retorno = messageService.listarTodasMensagens(page, pageSize, includeTotals);
 
         return retorno;
 
     }
 
+    // Timeline de um autor: mensagens do usuário {id} da mais recente para a mais antiga
+    // Paginação apenas por cursor (nextCursor da resposta anterior), sem OFFSET e sem COUNT(*)
+    @GetMapping("/users/{id}/messages")
+    public FeedDto userMessages(@PathVariable("id") UUID userId,
+                                @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
+                                @RequestParam(value = "cursor", required = false) String cursor) {
+
+        return messageService.listarMensagensDoUsuario(userId, cursor == null ? null : decodeCursor(cursor), pageSize);
+    }
+
+    // Moderação: remove todas as mensagens de um usuário (ex.: spam) com uma única requisição
+    @DeleteMapping("/users/{id}/messages")
+    @PreAuthorize("hasAuthority('SCOPE_admin')") // Apenas admin pode remover as mensagens de outro usuário
+    public ResponseEntity<Map<String, Integer>> deleteUserMessages(@PathVariable("id") UUID userId) {
+
+        var removed = messageService.removerMensagensDoUsuario(userId);
+
+        return ResponseEntity.ok(Map.of("deleted", removed));
+    }
+
+    // Busca textual no conteúdo das mensagens: retorna as mensagens que contêm todos os termos de q (sem diferenciar maiúsculas e acentos),
+    // da mais recente para a mais antiga
+    @GetMapping("/messages/search")
+    public FeedDto search(@RequestParam("q") String query,
+                          @RequestParam(value = "pageSize", defaultValue = "20") int pageSize) {
+
+        return messageService.buscarMensagens(query, pageSize);
+    }
+
+    // Feed ao vivo via Server-Sent Events: o cliente mantém uma conexão aberta e recebe os eventos
+    // "message" (FeedItemDto de cada nova mensagem) e "delete" ({"messageId": ...}) em vez de fazer polling em /feed
+    @GetMapping(value = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feedStream() {
+        return feedBroadcaster.subscribe();
+    }
+
+    private FeedCursor decodeCursor(String cursor) {
+        if (cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            return FeedCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Exportação completa de tb_messages em NDJSON (uma mensagem JSON por linha), escrita em streaming direto na resposta
+    // O parâmetro since (ISO-8601, ex.: 2024-01-01T00:00:00Z) permite exportações incrementais a partir de uma data (inclusive)
+    @GetMapping(value = "/messages/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasAuthority('SCOPE_admin')") // Apenas admin pode exportar todas as mensagens
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "since", required = false) Instant since) {
+
+        var from = since != null ? since : Instant.EPOCH;
+
+        StreamingResponseBody body = outputStream -> messageService.exportarMensagens(from, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     // O método createmessage é responsável por criar uma nova mensagem
     // Ele recebe um CreateMessagetDto com o conteúdo da mensagem e o token JWT do usuário autenticado
+    // Com messages.ingest.async=true a mensagem é apenas enfileirada para gravação em grupo e a resposta é 202 (Accepted) com o id atribuído
     @PostMapping("/messages")
-    public ResponseEntity<Void> createmessage(@RequestBody CreateMessagetDto dto, JwtAuthenticationToken token) {
-    	
+    public ResponseEntity<MessageAcceptedDto> createmessage(@RequestBody CreateMessagetDto dto, JwtAuthenticationToken token) {
+
+        if (writeBehind.isEnabled()) {
+            return ResponseEntity.accepted().body(writeBehind.enqueue(dto, token));
+        }
+
         var retorno = messageService.cadastrarMensagem(dto, token);
 
         return ResponseEntity.ok().build();
     }
 
+    // Cadastro de várias mensagens do usuário autenticado em uma única requisição
+    // Retorna o resultado de cada item (id gerado ou motivo da rejeição) e a vazão obtida
+    @PostMapping("/messages/batch")
+    public ResponseEntity<BatchMessagesResponse> createmessages(@RequestBody List<CreateMessagetDto> dtos, JwtAuthenticationToken token) {
+
+        if (dtos.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "O lote pode ter no máximo " + maxBatchSize + " mensagens");
+        }
+
+        return ResponseEntity.ok(messageService.cadastrarMensagens(dtos, token));
+    }
+
+    // O usuário pode remover as próprias mensagens; admin (scope 'admin' do token) pode remover qualquer mensagem
+    // A permissão e a remoção são resolvidas em um único DELETE condicional, sem carregar User nem Message
     @DeleteMapping("/messages/{id}")
     public ResponseEntity<Void> deletemessage(@PathVariable("id") Long messageId, JwtAuthenticationToken token) {
-    	
-        var user = userRepository.findById(UUID.fromString(token.getName()));
-        
-        //Verifica se a mensagem existe
-        var message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        
-        //Verifica se o usuário é um Admin.
-        var isAdmin = user.get().getRoles()
-                .stream()
-                .anyMatch(role -> role.getName().equalsIgnoreCase(Role.Values.ADMIN.name()));
-
-        //Se ele for um 'admin' ou o 'user' dono da mensagem, pode deletar. Caso não, retorna um 'forbidden'
-        if (isAdmin || message.getUser().getUserId().equals(UUID.fromString(token.getName()))) {
-            messageRepository.deleteById(messageId);
-        } else {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
 
+        messageService.removerMensagem(messageId, token);
 
         return ResponseEntity.ok().build();
     }
+
+    // Remoção em lote: DELETE /messages?ids=1,2,3 com as mesmas regras de permissão da remoção individual
+    @DeleteMapping("/messages")
+    public ResponseEntity<DeleteMessagesResponse> deletemessages(@RequestParam("ids") List<Long> messageIds, JwtAuthenticationToken token) {
+
+        if (messageIds.size() > maxDeleteIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "É possível remover no máximo " + maxDeleteIds + " mensagens por requisição");
+        }
+
+        return ResponseEntity.ok(messageService.removerMensagens(messageIds, token));
+    }
 }
@@ -1,13 +1,11 @@
 package br.com.messageApi.controller;
 
-import br.com.messageApi.config.SecurityConfig;
 import br.com.messageApi.dto.ResponseOtpDTO;
-import br.com.messageApi.entities.User;
-import br.com.messageApi.repository.UserRepository;
+import br.com.messageApi.dto.UserSnapshot;
 import br.com.messageApi.service.OTPService;
+import br.com.messageApi.service.UserCache;
 import io.jsonwebtoken.JwtException;
 import io.micrometer.common.util.StringUtils;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.NoResultException;
 import org.apache.coyote.Response;
 import org.springframework.http.HttpStatus;
@@ -22,28 +20,28 @@ import java.util.Map;
 @RestController
 public class OTPController {
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final OTPService otpService;
 
-    public OTPController(UserRepository userRepository, OTPService otpService) {
-        this.userRepository = userRepository;
+    public OTPController(UserCache userCache, OTPService otpService) {
+        this.userCache = userCache;
         this.otpService = otpService;
     }
 
     @Transactional
     @PostMapping("/esqueci-a-senha/{usuario}")
-    public ResponseOtpDTO esqueciASenha(@PathVariable("usuario") String usuario) throws MessagingException {
+    public ResponseOtpDTO esqueciASenha(@PathVariable("usuario") String usuario) {
         if (StringUtils.isEmpty(usuario)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O campo 'email' é obrigatório e não pode estar vazio");
         }
 
-        User emailEncontrado = userRepository.findByUsername(usuario)
+        UserSnapshot emailEncontrado = userCache.findByUsername(usuario)
                 .orElseThrow(() ->
                         new NoResultException(HttpStatus.NO_CONTENT + "Usuário "+ usuario + " não encontrado!")
                 );
 
-        if (emailEncontrado != null || StringUtils.isEmpty(emailEncontrado.getUsername())) {
-            return otpService.sendEmail(emailEncontrado.getUsername());
+        if (emailEncontrado != null || StringUtils.isEmpty(emailEncontrado.username())) {
+            return otpService.sendEmail(emailEncontrado.username());
         }
 
         return null;
@@ -1,35 +1,55 @@
 package br.com.messageApi.controller;
 
 import java.time.Instant;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;	
 
+import br.com.messageApi.config.TokenRevocationList;
 import br.com.messageApi.dto.LoginRequest;
 import br.com.messageApi.dto.LoginResponse;
-import br.com.messageApi.entities.Role;
-import br.com.messageApi.repository.UserRepository;
+import br.com.messageApi.dto.RefreshTokenRequest;
+import br.com.messageApi.service.RefreshTokenService;
+import br.com.messageApi.service.UserCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @RestController
 public class TokenController {
 
     private final JwtEncoder jwtEncoder;
-    private final UserRepository userRepository;
-    private BCryptPasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
+    private final Counter passwordGrants;
+    private final Counter refreshGrants;
 
     public TokenController(JwtEncoder jwtEncoder,
-                           UserRepository userRepository,
-                           BCryptPasswordEncoder passwordEncoder) {
+                           UserCache userCache,
+                           PasswordEncoder passwordEncoder,
+                           RefreshTokenService refreshTokenService,
+                           TokenRevocationList tokenRevocationList,
+                           MeterRegistry meterRegistry) {
         this.jwtEncoder = jwtEncoder;
-        this.userRepository = userRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationList = tokenRevocationList;
+        // Tokens emitidos por login (com BCrypt) e por refresh token (sem BCrypt)
+        this.passwordGrants = meterRegistry.counter("auth.tokens.issued", "grant", "password");
+        this.refreshGrants = meterRegistry.counter("auth.tokens.issued", "grant", "refresh_token");
+        this.userCache = userCache;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -41,7 +61,7 @@ public class TokenController {
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest loginRequest) {
 
-        var user = userRepository.findByUsername(loginRequest.username());
+        var user = userCache.findByUsername(loginRequest.username());
 
         if (user.isEmpty() || !user.get().isLoginCorrect(loginRequest, passwordEncoder)) {
             throw new BadCredentialsException("user or password is invalid!");
@@ -52,34 +72,78 @@ public class TokenController {
         // O token JWT é gerado com as informações do usuário, como o ID do usuário e os papéis (roles) do usuário
         // Configurar os claims do token JWT 
 
-        var now = Instant.now();
-        var expiresIn = 1000L;
-
         // Scopes
         // O scope é uma lista de permissões que o usuário tem no sistema
-        // Através do 'stream'faz o 'map' que pega no nome da role e depois um collect e um join através de espaços
         // O resultado é uma string com os nomes das roles separados por espaço
         // Exemplo: "ROLE_USER ROLE_ADMIN"
-        var scopes = user.get().getRoles()
-                .stream()
-                .map(Role::getName)
-                .collect(Collectors.joining(" "));
+        var scopes = user.get().scopes();
+
+        var userId = user.get().userId();
+        passwordGrants.increment();
+
+        return ResponseEntity.ok(createTokens(userId, scopes, refreshTokenService.issue(userId)));
+    }
+
+    // Troca um refresh token válido por um novo token de acesso e um novo refresh token (o apresentado deixa de valer)
+    // Não consulta a senha: as roles vêm do UserCache, sem BCrypt
+    @PostMapping("/token/refresh")
+    public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        var rotation = refreshTokenService.rotate(request.refreshToken());
+        var scopes = userCache.findById(rotation.userId())
+                .orElseThrow(() -> new BadCredentialsException("refresh token is invalid!"))
+                .scopes();
+
+        refreshGrants.increment();
+
+        return ResponseEntity.ok(createTokens(rotation.userId(), scopes, rotation.refreshToken()));
+    }
+
+    // Revoga o token de acesso usado na requisição (pelo jti) e, se informado, o refresh token da mesma sessão
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(JwtAuthenticationToken token,
+                                       @RequestBody(required = false) RefreshTokenRequest request) {
+        var jwt = token.getToken();
+
+        if (jwt.getId() != null) {
+            tokenRevocationList.revokeToken(jwt.getId(), jwt.getExpiresAt());
+        }
+
+        if (request != null) {
+            refreshTokenService.revoke(request.refreshToken(), UUID.fromString(token.getName()));
+        }
+
+        return ResponseEntity.noContent().build();
+    }
+
+    // Revoga todos os tokens de acesso e refresh tokens já emitidos para o usuário (ex.: conta comprometida)
+    @DeleteMapping("/users/{userId}/tokens")
+    @PreAuthorize("hasAuthority('SCOPE_admin')") // Apenas admin pode revogar os tokens de outro usuário
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable("userId") UUID userId) {
+        tokenRevocationList.revokeUser(userId);
+        refreshTokenService.revokeAll(userId);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    private LoginResponse createTokens(UUID userId, String scopes, String refreshToken) {
+        var now = Instant.now();
+        var expiresIn = 1000L;
+
         // Claims
         // Claims são as informações que serão armazenadas no token JWT
         var claims = JwtClaimsSet.builder()
                 .issuer("message-api-backend")
-                .subject(user.get().getUserId().toString())
+                .id(UUID.randomUUID().toString()) // jti, usado para revogar o token no logout
+                .subject(userId.toString())
                 .issuedAt(now)
                 .expiresAt(now.plusSeconds(expiresIn))
                 .claim("scope", scopes)
                 .build();
-        
-        System.out.println("Issuer: " + claims.getClaims().get("iss"));
-        System.out.println("Role: " + claims.getClaims().get("scope"));
-        
+
         // O token JWT é gerado através dos claims gerados acima. Informações do usuário, como o ID do usuário e os papéis (roles) do usuário
+        // O encoder assina com a chave atual e indica no cabeçalho o algoritmo (RS256, ES256 ou EdDSA) e o kid dessa chave
         var jwtValue = jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
 
-        return ResponseEntity.ok(new LoginResponse(jwtValue, expiresIn));
+        return new LoginResponse(jwtValue, expiresIn, refreshToken);
     }
 }
@@ -1,74 +1,122 @@
 package br.com.messageApi.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import br.com.messageApi.config.SendEmail;
 import br.com.messageApi.dto.CreateUserDto;
+import br.com.messageApi.dto.UserCursor;
+import br.com.messageApi.dto.UserImportResponse;
+import br.com.messageApi.dto.UserPageDto;
 import br.com.messageApi.entities.Role;
-import br.com.messageApi.entities.User;
-import br.com.messageApi.repository.RoleRepository;
-import br.com.messageApi.repository.UserRepository;
+import br.com.messageApi.service.UserImportService;
+import br.com.messageApi.service.UserService;
 import io.micrometer.common.util.StringUtils;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.NoResultException;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Set;
+import java.util.UUID;
 
 @RestController
 public class UserController {
 
-    private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final UserService userService;
+    private final UserImportService userImportService;
 
-    public UserController(UserRepository userRepository,
-                          RoleRepository roleRepository,
-                          BCryptPasswordEncoder passwordEncoder) {
-        this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    public UserController(PasswordEncoder passwordEncoder,
+                          UserService userService,
+                          UserImportService userImportService) {
         this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        this.userImportService = userImportService;
     }
 
-    @Transactional
+    // O hash é calculado antes da transação do cadastro, para não segurar uma conexão do pool durante o BCrypt
     @PostMapping("/users")
     public ResponseEntity<Void> newUser(@RequestBody CreateUserDto dto) {
 
-        var basicRole = roleRepository.findByName(Role.Values.BASIC.name());
-        var userFromDb = userRepository.findByUsername(dto.username());
-        
-        if (userFromDb.isPresent()) {
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
-        }
+        var passwordHash = passwordEncoder.encode(dto.password());
+        userService.cadastrarUsuario(dto.username(), passwordHash);
+
+        return ResponseEntity.ok().build();
+    }
 
-        var user = new User();
-        user.setUsername(dto.username());
-        user.setPassword(passwordEncoder.encode(dto.password()));
-        user.setRoles(Set.of(basicRole));
+    // Substitui as roles de um usuário (ex.: ["ADMIN", "BASIC"]); o snapshot do usuário no UserCache é invalidado
+    // Tokens de acesso já emitidos mantêm o scope antigo até expirarem ou serem revogados (DELETE /users/{id}/tokens)
+    @PutMapping("/users/{id}/roles")
+    @PreAuthorize("hasAuthority('SCOPE_admin')")
+    public ResponseEntity<Void> updateRoles(@PathVariable("id") UUID userId, @RequestBody Set<Role.Values> roles) {
 
-        userRepository.save(user);
+        userService.alterarRoles(userId, roles);
 
-        return ResponseEntity.ok().build();
+        return ResponseEntity.noContent().build();
     }
 
-    @GetMapping("/users")
+    // Listagem paginada por cursor (nextCursor da resposta anterior): id, username e nomes das roles, sem o hash da senha
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAuthority('SCOPE_admin')") // Verifica se o usuário tem a permissão de admin
-    public ResponseEntity<List<User>> listUsers() {
-        var users = userRepository.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserPageDto> listUsers(@RequestParam(value = "pageSize", defaultValue = "50") int pageSize,
+                                                 @RequestParam(value = "cursor", required = false) String cursor) {
+
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "pageSize deve estar entre 1 e " + MAX_PAGE_SIZE);
+        }
+
+        return ResponseEntity.ok(userService.listarUsuarios(decodeCursor(cursor), pageSize));
     }
-    
-    
 
-    
+    // Listagem completa em NDJSON (um usuário JSON por linha), escrita em streaming direto na resposta
+    // Selecionada pelo cabeçalho Accept: application/x-ndjson
+    @GetMapping(value = "/users", produces = "application/x-ndjson")
+    @PreAuthorize("hasAuthority('SCOPE_admin')")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+
+        StreamingResponseBody body = userService::exportarUsuarios;
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Importação em massa de usuários com a role BASIC: CSV (text/csv, linhas "username,password") ou JSON
+    // (array de {"username", "password"} ou NDJSON). O corpo é lido em streaming; a resposta traz as linhas rejeitadas e a vazão
+    @PostMapping(value = "/users/import", consumes = "text/csv")
+    @PreAuthorize("hasAuthority('SCOPE_admin')")
+    public ResponseEntity<UserImportResponse> importUsersCsv(InputStream body) {
+        return ResponseEntity.ok(userImportService.importarCsv(body));
+    }
+
+    @PostMapping(value = "/users/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    @PreAuthorize("hasAuthority('SCOPE_admin')")
+    public ResponseEntity<UserImportResponse> importUsersJson(InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importarJson(body));
+    }
+
+    private UserCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            return UserCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
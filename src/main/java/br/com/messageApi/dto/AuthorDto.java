@@ -0,0 +1,6 @@
+package br.com.messageApi.dto;
+
+import java.util.UUID;
+
+public record AuthorDto(UUID userId, String username) {
+}
@@ -0,0 +1,5 @@
+package br.com.messageApi.dto;
+
+// Resultado de um item do lote: messageId quando inserido, error quando rejeitado
+public record BatchMessageResultDto(int index, Long messageId, String error) {
+}
@@ -0,0 +1,10 @@
+package br.com.messageApi.dto;
+
+import java.util.List;
+
+public record BatchMessagesResponse(List<BatchMessageResultDto> results,
+                                    int inserted,
+                                    int rejected,
+                                    long elapsedMillis,
+                                    double messagesPerSecond) {
+}
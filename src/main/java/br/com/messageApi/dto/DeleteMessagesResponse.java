@@ -0,0 +1,7 @@
+package br.com.messageApi.dto;
+
+import java.util.List;
+
+// deleted: mensagens removidas; notDeleted: ids inexistentes ou de outro usuário (sem permissão)
+public record DeleteMessagesResponse(List<Long> deleted, List<Long> notDeleted) {
+}
@@ -0,0 +1,36 @@
+package br.com.messageApi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+// Cursor da paginação keyset do feed: posição (creationTimestamp, messageId) da última mensagem entregue
+// É serializado em Base64 URL-safe para que o cliente o trate como um valor opaco
+public record FeedCursor(Instant creationTimestamp, long messageId) {
+
+    public static FeedCursor of(FeedItemDto item) {
+        return new FeedCursor(item.creationTimestamp(), item.messageId());
+    }
+
+    public String encode() {
+        var raw = creationTimestamp.getEpochSecond() + ":" + creationTimestamp.getNano() + ":" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lança IllegalArgumentException se o cursor não foi gerado por encode()
+    public static FeedCursor decode(String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var parts = raw.split(":");
+
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+
+            var timestamp = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new FeedCursor(timestamp, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
+}
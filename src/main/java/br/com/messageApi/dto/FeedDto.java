@@ -1,10 +1,16 @@
 package br.com.messageApi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+// totalPages e totalElements só são preenchidos quando o COUNT(*) é solicitado (includeTotals=true)
+// nextCursor é o cursor opaco para buscar a próxima página no modo keyset (null quando não há mais mensagens)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record FeedDto(List<FeedItemDto> feedItens,
                       int page,
                       int pageSize,
-                      int totalPages,
-                      long totalElements) {
+                      Integer totalPages,
+                      Long totalElements,
+                      String nextCursor) {
 }
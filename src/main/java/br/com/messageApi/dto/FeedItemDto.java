@@ -1,4 +1,6 @@
 package br.com.messageApi.dto;
 
-public record FeedItemDto(long messageId, String content, String username) {
+import java.time.Instant;
+
+public record FeedItemDto(long messageId, String content, String username, Instant creationTimestamp) {
 }
@@ -1,4 +1,4 @@
 package br.com.messageApi.dto;
 
-public record LoginResponse(String accessToken, Long expiresIn) {
+public record LoginResponse(String accessToken, Long expiresIn, String refreshToken) {
 }
@@ -0,0 +1,4 @@
+package br.com.messageApi.dto;
+
+public record MessageContentDto(long messageId, String content) {
+}
@@ -0,0 +1,7 @@
+package br.com.messageApi.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record MessageExportDto(long messageId, UUID userId, String content, Instant creationTimestamp) {
+}
@@ -0,0 +1,7 @@
+package br.com.messageApi.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record RefreshTokenDto(String tokenHash, UUID userId, UUID familyId, Instant familyIssuedAt, Instant expiresAt) {
+}
@@ -0,0 +1,22 @@
+package br.com.messageApi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Cursor da paginação keyset de GET /users: username do último usuário entregue (a coluna é única)
+// É serializado em Base64 URL-safe para que o cliente o trate como um valor opaco
+public record UserCursor(String username) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lança IllegalArgumentException se o cursor não foi gerado por encode()
+    public static UserCursor decode(String cursor) {
+        try {
+            return new UserCursor(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package br.com.messageApi.dto;
+
+// Linha rejeitada na importação de usuários: posição na entrada (linha do CSV ou item do JSON, a partir de 1) e o motivo
+public record UserImportFailureDto(int row, String username, String error) {
+}
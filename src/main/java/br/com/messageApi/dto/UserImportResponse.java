@@ -0,0 +1,11 @@
+package br.com.messageApi.dto;
+
+import java.util.List;
+
+// failures traz no máximo users.import.max-reported-failures linhas; rejected conta todas
+public record UserImportResponse(List<UserImportFailureDto> failures,
+                                 int imported,
+                                 int rejected,
+                                 long elapsedMillis,
+                                 double rowsPerSecond) {
+}
@@ -0,0 +1,10 @@
+package br.com.messageApi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// nextCursor é o cursor opaco da próxima página (null quando não há mais usuários)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserPageDto(List<UserSummaryDto> users, int pageSize, String nextCursor) {
+}
@@ -0,0 +1,30 @@
+package br.com.messageApi.dto;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Cópia imutável do usuário guardada no UserCache: id, username, hash da senha e nomes das roles
+public record UserSnapshot(UUID userId, String username, String passwordHash, List<String> roles) {
+
+    public UserSnapshot {
+        roles = List.copyOf(roles);
+    }
+
+    // Usado pela consulta agregada, que devolve os nomes das roles concatenados por vírgula (null quando não há roles)
+    public UserSnapshot(UUID userId, String username, String passwordHash, String roles) {
+        this(userId, username, passwordHash, roles == null ? List.of() : Arrays.asList(roles.split(",")));
+    }
+
+    // Mesma verificação de User.isLoginCorrect, sobre o hash guardado no snapshot
+    public boolean isLoginCorrect(LoginRequest loginRequest, PasswordEncoder passwordEncoder) {
+        return passwordEncoder.matches(loginRequest.password(), passwordHash);
+    }
+
+    // Escopos do token JWT: nomes das roles separados por espaço
+    public String scopes() {
+        return String.join(" ", roles);
+    }
+}
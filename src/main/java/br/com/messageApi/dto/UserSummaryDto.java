@@ -0,0 +1,14 @@
+package br.com.messageApi.dto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Usuário na listagem de GET /users: sem o hash da senha e com as roles apenas pelo nome
+public record UserSummaryDto(UUID userId, String username, List<String> roles) {
+
+    // Usado pela consulta agregada, que devolve os nomes das roles concatenados por vírgula (null quando não há roles)
+    public UserSummaryDto(UUID userId, String username, String roles) {
+        this(userId, username, roles == null ? List.of() : Arrays.asList(roles.split(",")));
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.messageApi.entities;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// Chave de assinatura compartilhada entre os nós da aplicação, identificada pelo kid
+// ACCESS_TOKEN: chaves dos tokens de acesso (com rotação); OTP: segredo HMAC dos tokens de "esqueci a senha"
+// O jwk guarda a chave privada em formato JWK (JSON), cifrada pelo JwtKeyCipher
+@Entity
+@Table(name = "tb_jwt_keys", indexes = @Index(name = "idx_jwt_keys_purpose", columnList = "purpose"))
+public class JwtKey implements Persistable<String> {
+
+    public enum Purpose {
+        ACCESS_TOKEN,
+        OTP
+    }
+
+    @Id
+    @Column(length = 64)
+    private String kid;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Purpose purpose;
+
+    @Column(nullable = false, length = 16)
+    private String algorithm;
+
+    @Lob
+    @Column(nullable = false)
+    private String jwk;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // A chave só passa a assinar a partir deste instante; antes disso já é publicada para verificação em todos os nós
+    @Column(nullable = false)
+    private Instant activatesAt;
+
+    // O kid é atribuído pela aplicação: sem isso o save() faria merge e um nó poderia sobrescrever a chave gravada por outro
+    @Transient
+    private boolean persisted;
+
+    public JwtKey() {
+    }
+
+    public JwtKey(String kid, Purpose purpose, String algorithm, String jwk, Instant createdAt, Instant activatesAt) {
+        this.kid = kid;
+        this.purpose = purpose;
+        this.algorithm = algorithm;
+        this.jwk = jwk;
+        this.createdAt = createdAt;
+        this.activatesAt = activatesAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
+    @Override
+    public String getId() {
+        return kid;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public Purpose getPurpose() {
+        return purpose;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getJwk() {
+        return jwk;
+    }
+
+    public void setJwk(String jwk) {
+        this.jwk = jwk;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getActivatesAt() {
+        return activatesAt;
+    }
+}
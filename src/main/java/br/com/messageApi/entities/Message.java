@@ -2,19 +2,36 @@ package br.com.messageApi.entities;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.Instant;
 
 @Entity
-@Table(name = "tb_messages")
+// idx_messages_creation_id atende a ordenação do feed (creationTimestamp DESC, message_id DESC) e a paginação por cursor
+// idx_messages_user_creation atende a timeline de um autor (/users/{id}/messages) na mesma ordem, sem filesort
+// idx_messages_deleted localiza as mensagens removidas logicamente para o expurgo em blocos (MessagePurger)
+@Table(name = "tb_messages", indexes = {
+        @Index(name = "idx_messages_creation_id", columnList = "creationTimestamp, message_id"),
+        @Index(name = "idx_messages_user_creation", columnList = "user_id, creationTimestamp, message_id"),
+        @Index(name = "idx_messages_deleted", columnList = "deleted")
+})
+// Remoção lógica: mensagens com deleted = true não aparecem em nenhuma leitura da entidade e são apagadas depois pelo MessagePurger
+@SQLRestriction("deleted = false")
 public class Message {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequência com alocação em blocos (pooled): o Hibernate reserva 50 ids por ida ao banco,
+    // o que permite inserir lotes de mensagens com JDBC batch sem uma consulta à sequência por linha
+    // tb_messages_seq é o mesmo nome que o Hibernate já usava por padrão para esta entidade
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_messages_seq")
+    @SequenceGenerator(name = "tb_messages_seq", sequenceName = "tb_messages_seq", allocationSize = Message.ID_ALLOCATION_SIZE)
 	@Column(name = "message_id")
     private Long messageId;
 
-    @ManyToOne
+    // LAZY: o feed usa projeções e não precisa do User (nem do join EAGER com as roles) de cada mensagem
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -23,6 +40,9 @@ public class Message {
     @CreationTimestamp
     private Instant creationTimestamp;
 
+    @Column(nullable = false)
+    private boolean deleted;
+
     public Long getMessageId() {
         return messageId;
     }
@@ -54,4 +74,12 @@ public class Message {
     public void setCreationTimestamp(Instant creationTimestamp) {
         this.creationTimestamp = creationTimestamp;
     }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
 }
@@ -0,0 +1,103 @@
+package br.com.messageApi.entities;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Refresh token guardado apenas como hash (SHA-256); o valor original só existe no cliente
+// Tokens da mesma família descendem do mesmo login: cada uso gera o próximo e marca o atual como usado (usedAt)
+// Reapresentar um token já usado indica vazamento e revoga a família inteira
+// familyIssuedAt é o instante do login que iniciou a família: a rotação não estende a sessão além de jwt.refresh.max-lifetime
+@Entity
+@Table(name = "tb_refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expiresAt"),
+        @Index(name = "idx_refresh_tokens_used", columnList = "usedAt")
+})
+public class RefreshToken implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private UUID familyId;
+
+    // Nulo nos tokens gravados antes desta coluna existir (ddl-auto=update); nesses vale o issuedAt
+    private Instant familyIssuedAt;
+
+    @Column(nullable = false)
+    private Instant issuedAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private Instant usedAt;
+
+    // O id é o hash do token: sem isso o save() faria um select (merge) antes de cada insert
+    @Transient
+    private boolean persisted;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, User user, UUID familyId, Instant familyIssuedAt, Instant issuedAt, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.user = user;
+        this.familyId = familyId;
+        this.familyIssuedAt = familyIssuedAt;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public UUID getFamilyId() {
+        return familyId;
+    }
+
+    public Instant getFamilyIssuedAt() {
+        return familyIssuedAt;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Instant getUsedAt() {
+        return usedAt;
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.messageApi.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Revogação de tokens de acesso, compartilhada entre os nós
+// TOKEN: o id é o jti de um token (logout); USER: o id é o id do usuário e vale para todos os tokens emitidos antes de revokedBefore
+// A linha deixa de ser necessária em expiresAt, quando nenhum token afetado pode mais ser válido
+@Entity
+@Table(name = "tb_token_revocations", indexes = @Index(name = "idx_token_revocations_expires", columnList = "expiresAt"))
+public class TokenRevocation {
+
+    public enum Type {
+        TOKEN,
+        USER
+    }
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Type type;
+
+    private Instant revokedBefore;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    public TokenRevocation() {
+    }
+
+    public TokenRevocation(String id, Type type, Instant revokedBefore, Instant expiresAt) {
+        this.id = id;
+        this.type = type;
+        this.revokedBefore = revokedBefore;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Instant getRevokedBefore() {
+        return revokedBefore;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
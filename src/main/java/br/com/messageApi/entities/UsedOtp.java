@@ -0,0 +1,57 @@
+package br.com.messageApi.entities;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// jti de um token de OTP já validado, compartilhado entre os nós
+// A chave primária garante o uso único: um segundo insert do mesmo jti (em qualquer nó) falha e é tratado como reuso
+// A linha deixa de ser necessária em expiresAt, quando o próprio token já é rejeitado pela expiração
+@Entity
+@Table(name = "tb_used_otps", indexes = @Index(name = "idx_used_otps_expires", columnList = "expiresAt"))
+public class UsedOtp implements Persistable<String> {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Sempre um insert: sem isso o save() faria um select (merge) e atualizaria a linha de um jti já usado
+    @Transient
+    private boolean persisted;
+
+    public UsedOtp() {
+    }
+
+    public UsedOtp(String jti, Instant expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
+    @Override
+    public String getId() {
+        return jti;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
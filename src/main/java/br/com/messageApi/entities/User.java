@@ -4,12 +4,14 @@ import jakarta.persistence.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import br.com.messageApi.dto.LoginRequest;
+import br.com.messageApi.service.UserCacheListener;
 
 import java.util.Set;
 import java.util.UUID;
 
 @Entity
 @Table(name = "tb_users")
+@EntityListeners(UserCacheListener.class)
 public class User {
 
     @Id
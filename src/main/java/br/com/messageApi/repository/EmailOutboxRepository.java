@@ -0,0 +1,42 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.entities.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    @Query("""
+            select e.id from EmailOutbox e
+            where e.status = PENDING and e.nextAttemptAt <= :now
+            order by e.nextAttemptAt
+            """)
+    List<Long> findDueIds(@Param("now") Instant now, Pageable pageable);
+
+    // Reserva os e-mails para um lote: empurrar nextAttemptAt para o fim da reserva impede que outro nó os pegue ao mesmo tempo
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailOutbox e set e.claimToken = :claimToken, e.nextAttemptAt = :leaseEnd
+            where e.id in :ids and e.status = PENDING and e.nextAttemptAt <= :now
+            """)
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken,
+              @Param("now") Instant now, @Param("leaseEnd") Instant leaseEnd);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EmailOutbox e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
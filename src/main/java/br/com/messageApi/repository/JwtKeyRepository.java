@@ -0,0 +1,24 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.entities.JwtKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JwtKeyRepository extends JpaRepository<JwtKey, String> {
+
+    List<JwtKey> findByPurposeOrderByActivatesAtAsc(JwtKey.Purpose purpose);
+
+    // Remoção direta (sem carregar as entidades): vários nós podem remover as mesmas chaves aposentadas ao mesmo tempo
+    @Transactional
+    @Modifying
+    @Query("delete from JwtKey k where k.kid in :kids")
+    int deleteByKids(@Param("kids") Collection<String> kids);
+}
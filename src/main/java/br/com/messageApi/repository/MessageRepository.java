@@ -1,11 +1,133 @@
 package br.com.messageApi.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.messageApi.dto.FeedItemDto;
+import br.com.messageApi.dto.MessageContentDto;
 import br.com.messageApi.entities.Message;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
-public interface MessageRepository extends JpaRepository<Message, Long> {
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageStreamRepository {
+
+    // As consultas do feed projetam direto no FeedItemDto com um único SELECT (join com tb_users apenas para o username),
+    // sem carregar as entidades Message/User nem o join EAGER com tb_roles
+    String FEED_SELECT = """
+            select new br.com.messageApi.dto.FeedItemDto(m.messageId, m.content, u.username, m.creationTimestamp)
+            from Message m join m.user u
+            """;
+
+    String FEED_ORDER = " order by m.creationTimestamp desc, m.messageId desc";
+
+    // Página do feed com totais (executa também o COUNT(*) informado em countQuery)
+    @Query(value = FEED_SELECT + FEED_ORDER, countQuery = "select count(m) from Message m")
+    Page<FeedItemDto> findFeedPage(Pageable pageable);
+
+    // Página do feed sem o COUNT(*)
+    @Query(FEED_SELECT + FEED_ORDER)
+    Slice<FeedItemDto> findFeedSlice(Pageable pageable);
+
+    // Primeira página do modo cursor, na mesma ordem do índice idx_messages_creation_id
+    @Query(FEED_SELECT + FEED_ORDER)
+    List<FeedItemDto> findFeedFirst(Pageable pageable);
+
+    // Próxima página do modo cursor: mensagens estritamente anteriores à posição (creationTimestamp, messageId) do cursor
+    // Usa o índice idx_messages_creation_id em vez de percorrer e descartar as linhas de um OFFSET
+    @Query(FEED_SELECT + """
+            where m.creationTimestamp < :creationTimestamp
+               or (m.creationTimestamp = :creationTimestamp and m.messageId < :messageId)
+            """ + FEED_ORDER)
+    List<FeedItemDto> findFeedAfter(@Param("creationTimestamp") Instant creationTimestamp,
+                                    @Param("messageId") Long messageId,
+                                    Pageable pageable);
+
+    // Timeline de um autor, servida pelo índice idx_messages_user_creation (user_id, creationTimestamp, message_id)
+    @Query(FEED_SELECT + " where u.userId = :userId" + FEED_ORDER)
+    List<FeedItemDto> findTimelineFirst(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query(FEED_SELECT + """
+            where u.userId = :userId
+              and (m.creationTimestamp < :creationTimestamp
+                   or (m.creationTimestamp = :creationTimestamp and m.messageId < :messageId))
+            """ + FEED_ORDER)
+    List<FeedItemDto> findTimelineAfter(@Param("userId") UUID userId,
+                                        @Param("creationTimestamp") Instant creationTimestamp,
+                                        @Param("messageId") Long messageId,
+                                        Pageable pageable);
+
+    // Itens do feed para os ids encontrados pela busca textual (MessageSearchIndex)
+    @Query(FEED_SELECT + " where m.messageId in :ids" + FEED_ORDER)
+    List<FeedItemDto> findFeedByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select min(m.messageId) from Message m")
+    Long findMinMessageId();
+
+    @Query("select max(m.messageId) from Message m")
+    Long findMaxMessageId();
+
+    // Bloco de (messageId, content) de uma faixa de ids, usado na reconstrução do índice de busca
+    @Query("""
+            select new br.com.messageApi.dto.MessageContentDto(m.messageId, m.content)
+            from Message m
+            where m.messageId > :after and m.messageId <= :to
+            order by m.messageId
+            """)
+    List<MessageContentDto> findContentRange(@Param("after") Long after, @Param("to") Long to, Pageable pageable);
+
+    // Remoção (lógica) com a verificação de permissão no próprio UPDATE: dono da mensagem ou admin
+    // Retorna a quantidade de linhas removidas (0 quando a mensagem não existe, já foi removida ou o usuário não tem permissão)
+    @Transactional
+    @Modifying
+    @Query("""
+            update Message m set m.deleted = true
+            where m.messageId = :messageId and m.deleted = false and (m.user.userId = :userId or :isAdmin = true)
+            """)
+    int deleteAuthorized(@Param("messageId") Long messageId, @Param("userId") UUID userId, @Param("isAdmin") boolean isAdmin);
+
+    // SELECT ... FOR UPDATE: trava as linhas até o UPDATE de deleteAllAuthorized na mesma transação,
+    // então uma remoção concorrente do mesmo id não é reportada como feita pelas duas requisições
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m.messageId from Message m where m.messageId in :ids and (m.user.userId = :userId or :isAdmin = true)")
+    List<Long> findAuthorizedIds(@Param("ids") Collection<Long> ids, @Param("userId") UUID userId, @Param("isAdmin") boolean isAdmin);
+
+    @Modifying
+    @Query("""
+            update Message m set m.deleted = true
+            where m.messageId in :ids and m.deleted = false and (m.user.userId = :userId or :isAdmin = true)
+            """)
+    int deleteAllAuthorized(@Param("ids") Collection<Long> ids, @Param("userId") UUID userId, @Param("isAdmin") boolean isAdmin);
+
+    // Moderação: remoção lógica de todas as mensagens de um autor em um único UPDATE
+    @Transactional
+    @Modifying
+    @Query("update Message m set m.deleted = true where m.user.userId = :userId and m.deleted = false")
+    int softDeleteAllByUserId(@Param("userId") UUID userId);
+
+    // Expurgo físico em blocos das mensagens removidas logicamente; SQL nativo porque a entidade não enxerga as linhas com deleted = true
+    // Os ids do bloco são lidos com o limite do Pageable (traduzido pelo dialeto) e apagados por chave primária, sem DELETE ... LIMIT,
+    // que só existe no MySQL. Cada DELETE é curto e não segura locks longos em tb_messages
+    @Query(value = "select message_id from tb_messages where deleted = true order by message_id", nativeQuery = true)
+    List<Long> findDeletedIds(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from tb_messages where message_id in :ids and deleted = true", nativeQuery = true)
+    int purgeDeleted(@Param("ids") Collection<Long> ids);
 
+    @Query(value = "select count(*) from tb_messages where deleted = true", nativeQuery = true)
+    long countDeleted();
 }
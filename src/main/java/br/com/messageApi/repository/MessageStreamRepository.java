@@ -0,0 +1,13 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.entities.Message;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+public interface MessageStreamRepository {
+
+    // Leitura forward-only de toda a tabela para a exportação, em ordem cronológica a partir de since (inclusive)
+    // Deve ser consumido dentro de uma transação e fechado ao final
+    Stream<Message> streamAllSince(Instant since);
+}
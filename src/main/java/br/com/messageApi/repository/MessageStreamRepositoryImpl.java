@@ -0,0 +1,41 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.entities.Message;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+// O fetch size vale só para esta consulta, e não para a conexão inteira (useCursorFetch na URL afetaria todas as consultas)
+// No MySQL, Integer.MIN_VALUE é o modo de streaming do Connector/J: as linhas chegam uma a uma, sem carregar o resultado inteiro;
+// enquanto o stream estiver aberto a conexão não executa outros comandos. Outros bancos (H2 nos testes) recusam esse valor
+// e usam um fetch size comum
+public class MessageStreamRepositoryImpl implements MessageStreamRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Message> streamAllSince(Instant since) {
+        return entityManager.createQuery("""
+                        select m from Message m
+                        where m.creationTimestamp >= :since
+                        order by m.creationTimestamp, m.messageId
+                        """, Message.class)
+                .setParameter("since", since)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, isMySql() ? Integer.MIN_VALUE : FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private boolean isMySql() {
+        var dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        return dialect instanceof MySQLDialect;
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.dto.RefreshTokenDto;
+import br.com.messageApi.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    @Query("""
+            select new br.com.messageApi.dto.RefreshTokenDto(t.tokenHash, t.user.userId, t.familyId,
+                    coalesce(t.familyIssuedAt, t.issuedAt), t.expiresAt)
+            from RefreshToken t where t.tokenHash = :tokenHash
+            """)
+    Optional<RefreshTokenDto> findByHash(@Param("tokenHash") String tokenHash);
+
+    // Uso único decidido pelo banco: só uma requisição (em qualquer nó) consegue marcar o token; 0 linhas = já usado ou vencido
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.tokenHash = :tokenHash and t.usedAt is null and t.expiresAt > :now")
+    int markUsed(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.familyId = :familyId")
+    int deleteFamily(@Param("familyId") UUID familyId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.user.userId = :userId")
+    int deleteAllByUserId(@Param("userId") UUID userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    // Tokens usados há mais que a janela de detecção de reuso; o próximo token da família continua na tabela
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.usedAt < :usedBefore")
+    int deleteUsedBefore(@Param("usedBefore") Instant usedBefore);
+}
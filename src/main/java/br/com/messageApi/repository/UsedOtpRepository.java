@@ -0,0 +1,20 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.entities.UsedOtp;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface UsedOtpRepository extends JpaRepository<UsedOtp, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from UsedOtp u where u.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,14 +1,60 @@
 package br.com.messageApi.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import br.com.messageApi.dto.AuthorDto;
+import br.com.messageApi.dto.UserSnapshot;
+import br.com.messageApi.dto.UserSummaryDto;
 import br.com.messageApi.entities.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
+
+    // Apenas id e username dos autores, sem carregar as entidades nem as roles
+    @Query("select new br.com.messageApi.dto.AuthorDto(u.userId, u.username) from User u where u.userId in :ids")
+    List<AuthorDto> findAuthors(@Param("ids") Collection<UUID> ids);
+
+    // Usernames que já existem entre os informados (a comparação segue a collation da coluna)
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Listagem de usuários com paginação keyset por username: id, username e nomes das roles agregados em um único SELECT
+    // (GROUP_CONCAT no MySQL), sem carregar as entidades, o hash da senha nem o join EAGER com tb_roles
+    String SUMMARY_SELECT = """
+            select new br.com.messageApi.dto.UserSummaryDto(u.userId, u.username, listagg(r.name, ',') within group (order by r.name))
+            from User u left join u.roles r
+            """;
+
+    String SUMMARY_GROUP = """
+            group by u.username, u.userId
+            order by u.username
+            """;
+
+    @Query(SUMMARY_SELECT + SUMMARY_GROUP)
+    List<UserSummaryDto> findSummariesFirst(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username > :after\n" + SUMMARY_GROUP)
+    List<UserSummaryDto> findSummariesAfter(@Param("after") String after, Pageable pageable);
+
+    // Snapshot do UserCache: usuário e nomes das roles em um único SELECT agregado, sem o join EAGER da entidade
+    String SNAPSHOT_SELECT = """
+            select new br.com.messageApi.dto.UserSnapshot(u.userId, u.username, u.password, listagg(r.name, ',') within group (order by r.name))
+            from User u left join u.roles r
+            """;
+
+    @Query(SNAPSHOT_SELECT + "where u.username = :username group by u.userId, u.username, u.password")
+    Optional<UserSnapshot> findSnapshotByUsername(@Param("username") String username);
+
+    @Query(SNAPSHOT_SELECT + "where u.userId = :userId group by u.userId, u.username, u.password")
+    Optional<UserSnapshot> findSnapshotById(@Param("userId") UUID userId);
 }
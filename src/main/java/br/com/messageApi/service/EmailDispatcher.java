@@ -0,0 +1,274 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.entities.EmailOutbox;
+import br.com.messageApi.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Envia os e-mails gravados em tb_email_outbox fora do caminho da requisição
+// Uma thread reserva lotes de até batch-size e-mails vencidos (update condicional, então vários nós podem enviar sem duplicar)
+// e os envia por uma única conexão SMTP, mantida aberta enquanto houver fila e fechada quando ela esvazia
+// Falhas voltam para a fila com espera exponencial (com jitter) até max-attempts; depois disso o e-mail fica como DEAD
+// A entrega é pelo menos uma vez: se o nó cair entre o envio e a remoção da linha, o e-mail é reenviado quando a reserva expira
+@Component
+public class EmailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JavaMailSenderImpl mailSender;
+
+    private final boolean enabled;
+    private final String from;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    // Usado apenas pela thread do dispatcher
+    private Transport transport;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+    private final Timer sendTimer;
+
+    public EmailDispatcher(EmailOutboxRepository emailOutboxRepository,
+                           TransactionTemplate transactionTemplate,
+                           JavaMailSenderImpl mailSender,
+                           MeterRegistry meterRegistry,
+                           @Value("${email.outbox.enabled:true}") boolean enabled,
+                           @Value("${email.outbox.from:${spring.mail.username:}}") String from,
+                           @Value("${email.outbox.batch-size:50}") int batchSize,
+                           @Value("${email.outbox.poll-interval:5s}") Duration pollInterval,
+                           @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                           @Value("${email.outbox.initial-backoff:10s}") Duration initialBackoff,
+                           @Value("${email.outbox.max-backoff:30m}") Duration maxBackoff,
+                           @Value("${email.outbox.lease:2m}") Duration lease) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.mailSender = mailSender;
+        this.enabled = enabled;
+        this.from = from;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+
+        this.sent = meterRegistry.counter("email.outbox.dispatched", "result", "sent");
+        this.retried = meterRegistry.counter("email.outbox.dispatched", "result", "retry");
+        this.dead = meterRegistry.counter("email.outbox.dispatched", "result", "dead");
+        this.sendTimer = meterRegistry.timer("email.outbox.send");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        dispatcher = Thread.ofPlatform().name("email-dispatcher").start(this::run);
+    }
+
+    // Chamado após o commit de um novo e-mail, para enviá-lo sem esperar o poll-interval
+    public void wakeUp() {
+        if (wakeUp.availablePermits() == 0) {
+            wakeUp.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (dispatcher == null) {
+            return;
+        }
+
+        running = false;
+        wakeUp.release();
+        dispatcher.join();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (dispatchBatch() > 0) {
+                    continue;
+                }
+
+                // Fila vazia: não segura a conexão SMTP enquanto espera
+                closeTransport();
+                wakeUp.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Falha ao processar a fila de e-mails", e);
+                closeTransport();
+                sleepQuietly();
+            }
+        }
+
+        closeTransport();
+    }
+
+    // Reserva, envia e registra o resultado de um lote; devolve quantos e-mails foram reservados
+    private int dispatchBatch() {
+        var now = Instant.now();
+        var ids = emailOutboxRepository.findDueIds(now, PageRequest.ofSize(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        var claimToken = UUID.randomUUID().toString();
+        if (emailOutboxRepository.claim(ids, claimToken, now, now.plus(lease)) == 0) {
+            // Outro nó pegou o lote primeiro; ainda pode haver mais na fila
+            return ids.size();
+        }
+
+        var emails = emailOutboxRepository.findByClaimToken(claimToken);
+        var sentIds = new ArrayList<Long>(emails.size());
+        var failed = new ArrayList<EmailOutbox>();
+
+        for (var email : emails) {
+            try {
+                sendTimer.recordCallable(() -> {
+                    send(email);
+                    return null;
+                });
+                sentIds.add(email.getId());
+            } catch (Exception e) {
+                // A conexão pode ter ficado inutilizável; a próxima mensagem abre outra
+                closeTransport();
+                email.setLastError(truncate(e.toString()));
+                failed.add(email);
+            }
+        }
+
+        complete(sentIds, failed);
+        return ids.size();
+    }
+
+    // O corpo tem o OTP, então o e-mail enviado é removido em vez de marcado
+    private void complete(List<Long> sentIds, List<EmailOutbox> failed) {
+        var now = Instant.now();
+
+        for (var email : failed) {
+            var attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setClaimToken(null);
+
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailOutbox.Status.DEAD);
+                dead.increment();
+                log.error("E-mail {} para {} descartado após {} tentativas: {}", email.getId(), email.getRecipient(),
+                        attempts, email.getLastError());
+            } else {
+                email.setNextAttemptAt(now.plus(backoff(attempts)));
+                retried.increment();
+                log.warn("Falha no envio do e-mail {} (tentativa {}): {}", email.getId(), attempts, email.getLastError());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                emailOutboxRepository.deleteByIds(sentIds);
+            }
+            emailOutboxRepository.saveAll(failed);
+        });
+
+        sent.increment(sentIds.size());
+    }
+
+    private void send(EmailOutbox email) throws MessagingException {
+        var message = new MimeMessage(mailSender.getSession());
+        var helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+
+        if (!from.isEmpty()) {
+            helper.setFrom(from);
+        }
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        message.saveChanges();
+
+        transport().sendMessage(message, message.getAllRecipients());
+    }
+
+    private Transport transport() throws MessagingException {
+        if (transport == null || !transport.isConnected()) {
+            closeTransport();
+            transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        }
+        return transport;
+    }
+
+    private void closeTransport() {
+        if (transport == null) {
+            return;
+        }
+
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Falha ao fechar a conexão SMTP", e);
+        }
+        transport = null;
+    }
+
+    // initial-backoff dobrando a cada tentativa até max-backoff, com jitter de ±20% para não sincronizar as novas tentativas
+    private Duration backoff(int attempts) {
+        var base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        var capped = Math.min(base, maxBackoff.toMillis());
+        var jitter = ThreadLocalRandom.current().nextDouble(0.8, 1.2);
+        return Duration.ofMillis((long) (capped * jitter));
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= 500 ? error : error.substring(0, 500);
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.entities.EmailOutbox;
+import br.com.messageApi.repository.EmailOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Grava e-mails na tabela de saída dentro da transação corrente; o envio SMTP fica com o EmailDispatcher
+// Depois do commit o dispatcher é acordado, sem esperar o próximo ciclo de leitura da tabela
+@Service
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailDispatcher emailDispatcher;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository, EmailDispatcher emailDispatcher) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailDispatcher = emailDispatcher;
+    }
+
+    public void enqueue(String recipient, String subject, String html) {
+        emailOutboxRepository.save(new EmailOutbox(recipient, subject, html));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emailDispatcher.wakeUp();
+                }
+            });
+        } else {
+            emailDispatcher.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.FeedItemDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Distribui os eventos do feed (mensagem criada / removida) para os clientes conectados em /feed/stream via Server-Sent Events
+// Quem publica nunca bloqueia: o evento é apenas enfileirado no buffer limitado de cada assinante,
+// e o envio pela conexão é feito por virtual threads. Um assinante com o buffer cheio (cliente lento) é desconectado
+@Component
+public class FeedBroadcaster {
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public FeedBroadcaster(MeterRegistry meterRegistry,
+                           @Value("${feed.stream.buffer-size:256}") int bufferSize,
+                           @Value("${feed.stream.timeout:30m}") Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+
+        Gauge.builder("feed.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        FunctionCounter.builder("feed.stream.published", published, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("feed.stream.dropped", dropped, AtomicLong::get).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        var emitter = new SseEmitter(timeoutMillis);
+        var subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscriber.close());
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public void publishCreated(FeedItemDto item) {
+        publish(SseEmitter.event()
+                .name("message")
+                .id(String.valueOf(item.messageId()))
+                .data(item)
+                .build());
+    }
+
+    public void publishDeleted(long messageId) {
+        publish(SseEmitter.event()
+                .name("delete")
+                .id(String.valueOf(messageId))
+                .data(Map.of("messageId", messageId))
+                .build());
+    }
+
+    // Todas as mensagens do autor foram removidas (moderação); o cliente descarta as que já exibe desse autor
+    public void publishUserDeleted(UUID userId, String username) {
+        var data = new LinkedHashMap<String, Object>();
+        data.put("userId", userId);
+        data.put("username", username);
+
+        publish(SseEmitter.event()
+                .name("delete-user")
+                .id(userId.toString())
+                .data(data)
+                .build());
+    }
+
+    // Comentário SSE periódico: mantém a conexão aberta em proxies e detecta clientes que já desconectaram
+    @Scheduled(fixedRateString = "${feed.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            publish(SseEmitter.event().comment("heartbeat").build());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(Subscriber::close);
+        executor.shutdown();
+    }
+
+    private void publish(Set<DataWithMediaType> event) {
+        published.incrementAndGet();
+        subscribers.forEach(subscriber -> subscriber.enqueue(event));
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Queue<Set<DataWithMediaType>> buffer) {
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+
+        private void enqueue(Set<DataWithMediaType> event) {
+            if (!buffer.offer(event)) {
+                dropped.incrementAndGet();
+                close();
+                return;
+            }
+
+            scheduleDrain();
+        }
+
+        // Apenas uma tarefa de envio por assinante fica ativa por vez, preservando a ordem dos eventos
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+
+            // Um evento pode ter chegado entre o último poll e a liberação do flag
+            if (!buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        // O complete() é feito fora da thread que publica: se um envio estiver bloqueado nesta conexão,
+        // o emitter fica travado até o envio terminar e quem publica não pode esperar por isso
+        private void close() {
+            subscribers.remove(this);
+            buffer.clear();
+            executor.execute(emitter::complete);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.FeedItemDto;
+import br.com.messageApi.repository.MessageRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Cache em memória das N mensagens mais recentes do feed (as primeiras páginas concentram quase todo o tráfego)
+// O snapshot expira após o TTL e é atualizado no lugar quando mensagens são criadas ou removidas neste nó
+// Leituras concorrentes com o cache vazio compartilham uma única carga no banco de dados
+// Escritas que acontecem durante a carga são registradas e reaplicadas sobre o resultado antes de instalá-lo, então o cache
+// é preenchido mesmo sob escrita contínua; o total pode ficar aproximado (em ±1 por escrita concorrente) até o próximo TTL
+@Component
+public class FeedCache {
+
+    private final MessageRepository messageRepository;
+    private final int size;
+    private final long ttlNanos;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Snapshot>> loading = new AtomicReference<>();
+
+    // Escritas ocorridas enquanto uma carga está em andamento (protegida por this)
+    private final List<Write> pendingWrites = new ArrayList<>();
+    private boolean invalidatedWhileLoading;
+
+    // Remoções vistas por este nó; compõe o ETag do feed, já que remover não muda a mensagem mais recente
+    private final AtomicLong deletions = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FeedCache(MessageRepository messageRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${feed.cache.size:30}") int size,
+                     @Value("${feed.cache.ttl:5s}") Duration ttl) {
+        this.messageRepository = messageRepository;
+        this.size = size;
+        this.ttlNanos = ttl.toNanos();
+
+        FunctionCounter.builder("feed.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("feed.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("feed.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+    }
+
+    // Mensagens mais recentes com o total de mensagens no momento da carga
+    public record Snapshot(List<FeedItemDto> items, long totalElements, long loadedAt) {
+    }
+
+    // Mensagem criada (added) ou removida (removedId) durante uma carga
+    private record Write(FeedItemDto added, long removedId) {
+    }
+
+    // Retorna true se a janela [offset, offset + limit) está dentro das N mensagens mantidas em cache
+    public boolean covers(long offset, int limit) {
+        return offset + limit <= size;
+    }
+
+    public Snapshot get() {
+        var current = snapshot.get();
+
+        if (current != null && !isExpired(current)) {
+            hits.incrementAndGet();
+            return current;
+        }
+
+        if (current != null && snapshot.compareAndSet(current, null)) {
+            evictions.incrementAndGet();
+        }
+
+        misses.incrementAndGet();
+        return load();
+    }
+
+    // Snapshot atual se estiver válido, sem carregar e sem contar acerto ou falha
+    public Snapshot peek() {
+        var current = snapshot.get();
+        return current == null || isExpired(current) ? null : current;
+    }
+
+    public long deletions() {
+        return deletions.get();
+    }
+
+    // Write-through: insere a nova mensagem no topo do snapshot em vez de descartá-lo
+    public synchronized void add(FeedItemDto item) {
+        if (loading.get() != null) {
+            pendingWrites.add(new Write(item, 0));
+        }
+
+        snapshot.updateAndGet(current -> current == null || isExpired(current) ? null : withAdded(current, item));
+    }
+
+    // Uma mensagem removida de dentro da janela invalida o snapshot, pois a janela teria que ser completada pelo banco
+    public synchronized void remove(long messageId) {
+        deletions.incrementAndGet();
+
+        if (loading.get() != null) {
+            pendingWrites.add(new Write(null, messageId));
+        }
+
+        var previous = snapshot.getAndUpdate(current -> {
+            if (current == null || contains(current, messageId)) {
+                return null;
+            }
+
+            return new Snapshot(current.items(), current.totalElements() - 1, current.loadedAt());
+        });
+
+        if (previous != null && contains(previous, messageId)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Descarta o snapshot; uma carga em andamento não é instalada
+    public synchronized void invalidate() {
+        if (loading.get() != null) {
+            invalidatedWhileLoading = true;
+        }
+
+        if (snapshot.getAndSet(null) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Remoção de várias mensagens sem a lista de ids (ex.: todas as de um autor): conta como remoção e descarta o snapshot
+    public synchronized void removeAll() {
+        deletions.incrementAndGet();
+        invalidate();
+    }
+
+    private Snapshot load() {
+        var future = new CompletableFuture<Snapshot>();
+        var inFlight = loading.compareAndExchange(null, future);
+
+        // Outra thread já está carregando: aguarda o mesmo resultado
+        if (inFlight != null) {
+            return inFlight.join();
+        }
+
+        try {
+            var items = messageRepository.findFeedFirst(PageRequest.ofSize(size));
+            var loaded = install(new Snapshot(List.copyOf(items), messageRepository.count(), System.nanoTime()));
+
+            future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                pendingWrites.clear();
+                invalidatedWhileLoading = false;
+                loading.set(null);
+            }
+        }
+    }
+
+    // Reaplica as escritas feitas durante a carga; a consulta pode já ter visto algumas delas, então uma mensagem criada que
+    // já está no resultado não é repetida. Uma remoção dentro da janela exigiria completá-la pelo banco: nesse caso o
+    // resultado (sem a mensagem removida) é devolvido a quem esperava a carga, mas não fica no cache
+    private synchronized Snapshot install(Snapshot loaded) {
+        var result = loaded;
+        var complete = !invalidatedWhileLoading;
+
+        for (var write : pendingWrites) {
+            if (write.added() != null) {
+                if (!contains(result, write.added().messageId())) {
+                    result = withAdded(result, write.added());
+                }
+            } else if (contains(result, write.removedId())) {
+                var items = result.items().stream().filter(item -> item.messageId() != write.removedId()).toList();
+                result = new Snapshot(items, result.totalElements() - 1, result.loadedAt());
+                complete = false;
+            } else {
+                result = new Snapshot(result.items(), result.totalElements() - 1, result.loadedAt());
+            }
+        }
+
+        if (complete) {
+            snapshot.set(result);
+        }
+        return result;
+    }
+
+    private Snapshot withAdded(Snapshot current, FeedItemDto item) {
+        var items = new ArrayList<FeedItemDto>(current.items().size() + 1);
+        items.add(item);
+        items.addAll(current.items().subList(0, Math.min(current.items().size(), size - 1)));
+
+        return new Snapshot(List.copyOf(items), current.totalElements() + 1, current.loadedAt());
+    }
+
+    private static boolean contains(Snapshot current, long messageId) {
+        return current.items().stream().anyMatch(item -> item.messageId() == messageId);
+    }
+
+    private boolean isExpired(Snapshot current) {
+        return System.nanoTime() - current.loadedAt() > ttlNanos;
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.FeedItemDto;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// Reflete as mensagens gravadas ou removidas no cache do feed, no feed ao vivo (SSE) e no índice de busca
+// Deve ser chamado depois que a escrita foi confirmada no banco
+@Component
+public class MessageEvents {
+
+    private final FeedCache feedCache;
+    private final FeedBroadcaster feedBroadcaster;
+    private final MessageSearchIndex searchIndex;
+
+    public MessageEvents(FeedCache feedCache, FeedBroadcaster feedBroadcaster, MessageSearchIndex searchIndex) {
+        this.feedCache = feedCache;
+        this.feedBroadcaster = feedBroadcaster;
+        this.searchIndex = searchIndex;
+    }
+
+    public void created(FeedItemDto item) {
+        feedCache.add(item);
+        feedBroadcaster.publishCreated(item);
+        searchIndex.add(item.messageId(), item.content());
+    }
+
+    public void deleted(long messageId) {
+        feedCache.remove(messageId);
+        feedBroadcaster.publishDeleted(messageId);
+        searchIndex.remove(messageId);
+    }
+
+    // Todas as mensagens de um autor removidas de uma vez, sem a lista de ids: o cache do feed é descartado e os clientes do
+    // feed ao vivo recebem um único evento com o autor. A busca já filtra as removidas; o índice é limpo no expurgo (MessagePurger)
+    public void userDeleted(UUID userId, String username) {
+        feedCache.removeAll();
+        feedBroadcaster.publishUserDeleted(userId, username);
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.repository.MessageRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Apaga fisicamente as mensagens removidas logicamente (deleted = true), em blocos pequenos e cada bloco na própria transação,
+// para nunca segurar locks longos em tb_messages. Cada execução processa no máximo max-chunks blocos
+// O progresso (linhas expurgadas) e o backlog (linhas ainda pendentes) ficam expostos como métricas
+// Os ids expurgados saem também do índice de busca deste nó (a remoção lógica por usuário não passa por ele)
+@Component
+public class MessagePurger {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagePurger.class);
+
+    private final MessageRepository messageRepository;
+    private final MessageSearchIndex searchIndex;
+    private final int chunkSize;
+    private final int maxChunks;
+
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+
+    public MessagePurger(MessageRepository messageRepository,
+                         MessageSearchIndex searchIndex,
+                         MeterRegistry meterRegistry,
+                         @Value("${messages.purge.chunk-size:500}") int chunkSize,
+                         @Value("${messages.purge.max-chunks:100}") int maxChunks) {
+        this.messageRepository = messageRepository;
+        this.searchIndex = searchIndex;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+
+        FunctionCounter.builder("messages.purge.purged", purged, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("messages.purge.backlog", backlog, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${messages.purge.interval-ms:60000}")
+    public void purge() {
+        var total = 0;
+
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            var ids = messageRepository.findDeletedIds(PageRequest.ofSize(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            var removed = messageRepository.purgeDeleted(ids);
+            total += removed;
+            purged.addAndGet(removed);
+            ids.forEach(searchIndex::remove);
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        backlog.set(messageRepository.countDeleted());
+
+        if (total > 0) {
+            log.info("Expurgo de mensagens removidas: {} linhas apagadas, {} pendentes", total, backlog.get());
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.MessageContentDto;
+import br.com.messageApi.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido em memória sobre Message.content: cada termo aponta para a lista ordenada dos ids das mensagens que o contêm
+// É reconstruído em paralelo a partir do banco quando a aplicação sobe e mantido pelos fluxos de criação e remoção de mensagens
+// As buscas são resolvidas apenas no índice, nunca com LIKE '%...%' no MySQL
+// Cada nó mantém o próprio índice: mensagens criadas ou removidas em outros nós só aparecem após a próxima reconstrução
+// Se a reconstrução falhar (ex.: banco indisponível na subida), ela é repetida com espera exponencial até conseguir;
+// enquanto isso a busca responde 503
+@Component
+public class MessageSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private final MessageRepository messageRepository;
+    private final int rebuildChunkSize;
+    private final TaskScheduler taskScheduler;
+    private final Duration retryInitialBackoff;
+    private final Duration retryMaxBackoff;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // termo -> ids das mensagens (ordenados)
+    private Map<String, Postings> postings = new HashMap<>();
+
+    // id da mensagem -> termos indexados, usado para remover a mensagem do índice
+    private Map<Long, String[]> terms = new HashMap<>();
+
+    // Escritas recebidas enquanto a reconstrução está em andamento, reaplicadas sobre o índice reconstruído
+    private List<Runnable> pending = new ArrayList<>();
+    private boolean ready;
+
+    public MessageSearchIndex(MessageRepository messageRepository,
+                              TaskScheduler taskScheduler,
+                              @Value("${messages.search.rebuild-chunk-size:1000}") int rebuildChunkSize,
+                              @Value("${messages.search.rebuild-retry.initial-backoff:5s}") Duration retryInitialBackoff,
+                              @Value("${messages.search.rebuild-retry.max-backoff:5m}") Duration retryMaxBackoff) {
+        this.messageRepository = messageRepository;
+        this.taskScheduler = taskScheduler;
+        this.rebuildChunkSize = rebuildChunkSize;
+        this.retryInitialBackoff = retryInitialBackoff;
+        this.retryMaxBackoff = retryMaxBackoff;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(long messageId, String content) {
+        write(() -> index(postings, terms, messageId, content));
+    }
+
+    public void remove(long messageId) {
+        write(() -> unindex(messageId));
+    }
+
+    // Ids das mensagens que contêm todos os termos da consulta, da mais recente (maior id) para a mais antiga
+    // Percorre a lista mais curta do fim para o início, ignorando as posições removidas, e confirma cada id nas demais listas por
+    // busca binária; para ao atingir limit, sem copiar nenhuma lista
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, Long.MAX_VALUE);
+    }
+
+    // Continuação da busca: apenas ids menores que beforeId
+    public List<Long> search(String query, int limit, long beforeId) {
+        var queryTerms = tokenize(query);
+
+        if (queryTerms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            var lists = new ArrayList<Postings>(queryTerms.length);
+
+            for (var term : queryTerms) {
+                var list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+
+            lists.sort(Comparator.comparingInt(Postings::liveSize));
+            var shortest = lists.get(0);
+
+            var ids = new ArrayList<Long>(Math.min(limit, shortest.liveSize()));
+            for (int i = shortest.lastIndexBefore(beforeId); i >= 0 && ids.size() < limit; i--) {
+                if (shortest.isRemoved(i)) {
+                    continue;
+                }
+
+                var id = shortest.ids[i];
+                if (containedInAll(lists, id)) {
+                    ids.add(id);
+                }
+            }
+
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean containedInAll(List<Postings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuildOrRetry(retryInitialBackoff);
+    }
+
+    // Em caso de falha agenda uma nova tentativa após backoff, dobrando a espera até max-backoff
+    private void rebuildOrRetry(Duration backoff) {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconstruir o índice de busca; nova tentativa em {}", backoff, e);
+
+            var next = backoff.multipliedBy(2).compareTo(retryMaxBackoff) > 0 ? retryMaxBackoff : backoff.multipliedBy(2);
+            taskScheduler.schedule(() -> rebuildOrRetry(next), Instant.now().plus(backoff));
+        }
+    }
+
+    // Reconstrói o índice dividindo a faixa de ids entre os núcleos disponíveis; cada faixa é lida em blocos e indexada separadamente
+    // e as faixas são concatenadas em ordem, o que mantém as listas de ids ordenadas sem reordenar
+    public void rebuild() {
+        var minId = messageRepository.findMinMessageId();
+        var maxId = messageRepository.findMaxMessageId();
+
+        if (minId == null || maxId == null) {
+            install(new HashMap<>(), new HashMap<>());
+            return;
+        }
+
+        var partitions = Runtime.getRuntime().availableProcessors();
+        var step = Math.max(1, (maxId - minId + 1) / partitions + 1);
+
+        try (var executor = Executors.newFixedThreadPool(partitions)) {
+            var futures = new ArrayList<CompletableFuture<Partial>>();
+
+            for (long from = minId - 1; from < maxId; from += step) {
+                var after = from;
+                var to = Math.min(maxId, from + step);
+                futures.add(CompletableFuture.supplyAsync(() -> buildPartial(after, to), executor));
+            }
+
+            var mergedPostings = new HashMap<String, Postings>();
+            var mergedTerms = new HashMap<Long, String[]>();
+
+            for (var future : futures) {
+                var partial = future.join();
+                partial.postings().forEach((term, list) ->
+                        mergedPostings.computeIfAbsent(term, t -> new Postings()).appendAll(list));
+                mergedTerms.putAll(partial.terms());
+            }
+
+            install(mergedPostings, mergedTerms);
+        }
+    }
+
+    private record Partial(Map<String, Postings> postings, Map<Long, String[]> terms) {
+    }
+
+    private Partial buildPartial(long after, long to) {
+        var partialPostings = new HashMap<String, Postings>();
+        var partialTerms = new HashMap<Long, String[]>();
+        var cursor = after;
+
+        while (true) {
+            List<MessageContentDto> chunk = messageRepository.findContentRange(cursor, to, PageRequest.ofSize(rebuildChunkSize));
+
+            for (var message : chunk) {
+                index(partialPostings, partialTerms, message.messageId(), message.content());
+            }
+
+            if (chunk.size() < rebuildChunkSize) {
+                return new Partial(partialPostings, partialTerms);
+            }
+
+            cursor = chunk.get(chunk.size() - 1).messageId();
+        }
+    }
+
+    private void install(Map<String, Postings> newPostings, Map<Long, String[]> newTerms) {
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            terms = newTerms;
+
+            pending.forEach(Runnable::run);
+            pending = new ArrayList<>();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(Runnable operation) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                pending.add(operation);
+            }
+            operation.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void index(Map<String, Postings> postings, Map<Long, String[]> terms, long messageId, String content) {
+        var messageTerms = tokenize(content);
+
+        for (var term : messageTerms) {
+            postings.computeIfAbsent(term, t -> new Postings()).add(messageId);
+        }
+
+        terms.put(messageId, messageTerms);
+    }
+
+    private void unindex(long messageId) {
+        var messageTerms = terms.remove(messageId);
+
+        if (messageTerms == null) {
+            return;
+        }
+
+        for (var term : messageTerms) {
+            var list = postings.get(term);
+            if (list != null && list.remove(messageId) && list.liveSize() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    // Termos distintos em minúsculas e sem acentos ("Mensagem é" -> ["mensagem"]); termos com menos de 2 caracteres são ignorados
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+
+        var normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+
+        return SEPARATORS.splitAsStream(normalized.toLowerCase(Locale.ROOT))
+                .filter(term -> term.length() >= MIN_TERM_LENGTH)
+                .distinct()
+                .map(String::intern)
+                .toArray(String[]::new);
+    }
+
+    // Lista ordenada de ids em um long[] (sem boxing); ids novos normalmente são maiores que os existentes e entram no final
+    // A remoção só marca a posição em um BitSet (busca binária, sem deslocar o array sob o lock de escrita); as posições
+    // marcadas são ignoradas na busca e descartadas de uma vez quando passam da metade da lista
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+        private BitSet removed;
+        private int removedCount;
+
+        private void add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity(size + 1);
+                ids[size++] = id;
+                return;
+            }
+
+            var position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                if (isRemoved(position)) {
+                    removed.clear(position);
+                    removedCount--;
+                }
+                return;
+            }
+
+            // Inserção fora de ordem (rara): as marcas de remoção acompanhariam o deslocamento, então são aplicadas antes
+            compact();
+            var insertAt = -Arrays.binarySearch(ids, 0, size, id) - 1;
+            ensureCapacity(size + 1);
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        private void appendAll(Postings other) {
+            other.compact();
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.ids, 0, ids, size, other.size);
+            size += other.size;
+        }
+
+        private boolean remove(long id) {
+            var position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0 || isRemoved(position)) {
+                return false;
+            }
+
+            if (removed == null) {
+                removed = new BitSet(size);
+            }
+            removed.set(position);
+            removedCount++;
+
+            if (removedCount > size / 2) {
+                compact();
+            }
+            return true;
+        }
+
+        private boolean contains(long id) {
+            var position = Arrays.binarySearch(ids, 0, size, id);
+            return position >= 0 && !isRemoved(position);
+        }
+
+        // Posição do maior id menor que beforeId (-1 se não houver)
+        private int lastIndexBefore(long beforeId) {
+            if (size == 0 || ids[size - 1] < beforeId) {
+                return size - 1;
+            }
+            var position = Arrays.binarySearch(ids, 0, size, beforeId);
+            return position >= 0 ? position - 1 : -position - 2;
+        }
+
+        private boolean isRemoved(int position) {
+            return removed != null && removed.get(position);
+        }
+
+        private int liveSize() {
+            return size - removedCount;
+        }
+
+        private long[] liveIds() {
+            if (removedCount == 0) {
+                return Arrays.copyOf(ids, size);
+            }
+
+            var live = new long[liveSize()];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (!removed.get(i)) {
+                    live[j++] = ids[i];
+                }
+            }
+            return live;
+        }
+
+        private void compact() {
+            if (removedCount == 0) {
+                return;
+            }
+
+            var live = liveIds();
+            System.arraycopy(live, 0, ids, 0, live.length);
+            size = live.length;
+            removed = null;
+            removedCount = 0;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(capacity, ids.length * 2));
+            }
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package br.com.messageApi.service;
 
+import br.com.messageApi.dto.BatchMessageResultDto;
+import br.com.messageApi.dto.BatchMessagesResponse;
 import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.dto.DeleteMessagesResponse;
+import br.com.messageApi.dto.FeedCursor;
 import br.com.messageApi.dto.FeedDto;
 import br.com.messageApi.dto.FeedItemDto;
+import br.com.messageApi.dto.MessageExportDto;
+import br.com.messageApi.dto.UserSnapshot;
 import br.com.messageApi.entities.Message;
+import br.com.messageApi.entities.Role;
+import br.com.messageApi.entities.User;
 import br.com.messageApi.repository.MessageRepository;
-import br.com.messageApi.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -22,48 +47,386 @@ public class MessageService {
     private MessageRepository messageRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
-    public FeedDto listarTodasMensagens(int page, int pageSize) {
+    @Autowired
+    private FeedCache feedCache;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageEvents messageEvents;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${feed.etag.max-age:60s}")
+    private Duration etagMaxAge;
+
+    // Limites da busca ao completar uma página com ids removidos: rodadas por requisição e ids lidos do índice por rodada
+    private static final int MAX_SEARCH_ROUNDS = 8;
+    private static final int MAX_SEARCH_FETCH = 1000;
+
+    // Tamanho padrão da coluna content (VARCHAR(255))
+    private static final int MAX_CONTENT_LENGTH = 255;
+
+    public FeedDto listarTodasMensagens(int page, int pageSize, boolean includeTotals) {
+
+        // As primeiras páginas são servidas pelo cache das mensagens mais recentes
+        if (feedCache.covers((long) page * pageSize, pageSize)) {
+            return fromCache(feedCache.get(), page, pageSize, includeTotals);
+        }
 
         try{
-            var messages = messageRepository.findAll(
-                            PageRequest.of(page, pageSize, Sort.Direction.DESC, "creationTimestamp"))
-                    .map(message ->
-                            new FeedItemDto(
-                                    message.getMessageId(),
-                                    message.getContent(),
-                                    message.getUser().getUsername())
-                    );
+            // A ordenação (creationTimestamp DESC, messageId DESC) já está nas consultas de projeção do MessageRepository
+            var pageRequest = PageRequest.of(page, pageSize);
+
+            // O COUNT(*) em tb_messages só é executado quando o cliente pede os totais
+            if (!includeTotals) {
+                var messages = messageRepository.findFeedSlice(pageRequest);
+                var itens = messages.getContent();
+
+                return new FeedDto(itens, page, pageSize, null, null, messages.hasNext() ? nextCursor(itens) : null);
+            }
+
+            var messages = messageRepository.findFeedPage(pageRequest);
+            var itens = messages.getContent();
 
             // Retorna o FeedDto com as mensagens paginadas, contendo a lista de mensagens, número da página atual, tamanho da página, total de páginas
             // e o total de elementos.
             return ResponseEntity.ok(new FeedDto(
-                    messages.getContent(), page, pageSize, messages.getTotalPages(), messages.getTotalElements())).getBody();
+                    itens, page, pageSize, messages.getTotalPages(), messages.getTotalElements(),
+                    messages.hasNext() ? nextCursor(itens) : null)).getBody();
         } catch (RuntimeException e) {
             throw new RuntimeException(e.getCause());
         }
 
     }
 
+    // Paginação keyset: continua a partir da posição do cursor sem OFFSET e sem COUNT(*)
+    // Quando cursor é null, retorna a primeira página do feed
+    public FeedDto listarMensagensPorCursor(FeedCursor cursor, int pageSize) {
+
+        if (cursor == null && feedCache.covers(0, pageSize)) {
+            return fromCache(feedCache.get(), 0, pageSize, false);
+        }
+
+        // Busca um item a mais apenas para saber se existe próxima página
+        var limit = PageRequest.ofSize(pageSize + 1);
+
+        var messages = cursor == null
+                ? messageRepository.findFeedFirst(limit)
+                : messageRepository.findFeedAfter(cursor.creationTimestamp(), cursor.messageId(), limit);
+
+        var hasNext = messages.size() > pageSize;
+        var itens = hasNext ? messages.subList(0, pageSize) : messages;
+
+        return new FeedDto(itens, 0, pageSize, null, null, hasNext ? nextCursor(itens) : null);
+    }
+
+    // Timeline de um autor com paginação keyset, no mesmo formato de cursor do feed
+    public FeedDto listarMensagensDoUsuario(UUID userId, FeedCursor cursor, int pageSize) {
+
+        var limit = PageRequest.ofSize(pageSize + 1);
+
+        var messages = cursor == null
+                ? messageRepository.findTimelineFirst(userId, limit)
+                : messageRepository.findTimelineAfter(userId, cursor.creationTimestamp(), cursor.messageId(), limit);
+
+        var hasNext = messages.size() > pageSize;
+        var itens = hasNext ? messages.subList(0, pageSize) : messages;
+
+        return new FeedDto(itens, 0, pageSize, null, null, hasNext ? nextCursor(itens) : null);
+    }
+
+    // Busca textual: os ids vêm do índice invertido em memória e apenas essas mensagens são lidas do banco
+    // O índice pode ter ids que já não são visíveis (ex.: remoção de todas as mensagens de um autor, que não lista os ids, ou
+    // remoções em outro nó): esses ids são retirados do índice e a página é completada com os próximos resultados
+    public FeedDto buscarMensagens(String query, int pageSize) {
+
+        if (!searchIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de busca em construção");
+        }
+
+        var itens = new ArrayList<FeedItemDto>(pageSize);
+        var beforeId = Long.MAX_VALUE;
+
+        for (int round = 0; round < MAX_SEARCH_ROUNDS && itens.size() < pageSize; round++) {
+            // Cada rodada pede o dobro da anterior, para não fazer uma consulta por id removido
+            var wanted = (int) Math.min(MAX_SEARCH_FETCH, (long) (pageSize - itens.size()) << round);
+            var ids = searchIndex.search(query, wanted, beforeId);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            var found = messageRepository.findFeedByIds(ids);
+            if (found.size() < ids.size()) {
+                var visible = new HashSet<Long>();
+                found.forEach(item -> visible.add(item.messageId()));
+                ids.stream().filter(id -> !visible.contains(id)).forEach(searchIndex::remove);
+            }
+
+            itens.addAll(found.subList(0, Math.min(found.size(), pageSize - itens.size())));
+            beforeId = ids.get(ids.size() - 1);
+        }
+
+        return new FeedDto(itens, 0, pageSize, null, null, null);
+    }
+
+    // ETag do feed sem carregar a página: maior messageId visível (do snapshot do FeedCache, se já houver um válido, senão um
+    // select max(message_id) pela chave primária), contador de remoções deste nó e os parâmetros da requisição
+    // Mensagens novas (de qualquer nó) mudam o maior id e remoções neste nó mudam o contador; remoções feitas em outros nós
+    // entram no ETag em até feed.etag.max-age, pelo período incluído no valor
+    public String feedETag(int page, int pageSize, String cursor, boolean includeTotals) {
+        var snapshot = feedCache.peek();
+
+        long newestId;
+        if (snapshot != null) {
+            newestId = snapshot.items().isEmpty() ? 0 : snapshot.items().get(0).messageId();
+        } else {
+            var maxId = messageRepository.findMaxMessageId();
+            newestId = maxId == null ? 0 : maxId;
+        }
+
+        var version = String.join("|",
+                String.valueOf(newestId),
+                String.valueOf(feedCache.deletions()),
+                String.valueOf(System.currentTimeMillis() / etagMaxAge.toMillis()),
+                String.valueOf(page),
+                String.valueOf(pageSize),
+                String.valueOf(cursor),
+                String.valueOf(includeTotals));
+
+        return DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FeedDto fromCache(FeedCache.Snapshot snapshot, int page, int pageSize, boolean includeTotals) {
+        var cached = snapshot.items();
+        var from = Math.min(page * pageSize, cached.size());
+        var to = Math.min(from + pageSize, cached.size());
+        var itens = cached.subList(from, to);
+        var hasNext = snapshot.totalElements() > to;
+
+        if (!includeTotals) {
+            return new FeedDto(itens, page, pageSize, null, null, hasNext ? nextCursor(itens) : null);
+        }
+
+        var totalPages = pageSize == 0 ? 1 : (int) Math.ceil((double) snapshot.totalElements() / pageSize);
+
+        return new FeedDto(itens, page, pageSize, totalPages, snapshot.totalElements(), hasNext ? nextCursor(itens) : null);
+    }
+
+    private String nextCursor(List<FeedItemDto> itens) {
+        return itens.isEmpty() ? null : FeedCursor.of(itens.get(itens.size() - 1)).encode();
+    }
+
     public ResponseEntity<FeedDto> cadastrarMensagem(CreateMessagetDto dto, JwtAuthenticationToken token) {
 
+        validarConteudo(dto);
+
         try {
-            var user = userRepository.findById(UUID.fromString(token.getName()));
+            var user = userCache.findById(UUID.fromString(token.getName()));
 
             var message = new Message();
 
             if (user.isPresent()) {
-                message.setUser(user.get());
+                message.setUser(entityManager.getReference(User.class, user.get().userId()));
                 message.setContent(dto.content());
             }
 
             messageRepository.save(message);
 
+            if (user.isPresent()) {
+                publicarMensagem(message, user.get().username());
+            }
+
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    // Regras de conteúdo comuns a POST /messages (síncrono e assíncrono) e ao cadastro em lote
+    static void validarConteudo(CreateMessagetDto dto) {
+        var erro = erroDeConteudo(dto);
+        if (erro != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, erro);
+        }
+    }
+
+    private static String erroDeConteudo(CreateMessagetDto dto) {
+        if (dto == null || dto.content() == null || dto.content().isBlank()) {
+            return "O campo 'content' é obrigatório";
+        }
+
+        if (dto.content().length() > MAX_CONTENT_LENGTH) {
+            return "O campo 'content' excede " + MAX_CONTENT_LENGTH + " caracteres";
+        }
+        return null;
+    }
+
+    // Cadastro em lote: o autor vem do UserCache (a mensagem só precisa da referência ao User) e as mensagens válidas são inseridas em uma só transação,
+    // em blocos de hibernate.jdbc.batch_size com JDBC batch (os ids vêm em blocos da sequência pooled)
+    // Itens inválidos são rejeitados individualmente sem impedir a inserção dos demais
+    public BatchMessagesResponse cadastrarMensagens(List<CreateMessagetDto> dtos, JwtAuthenticationToken token) {
+
+        var start = System.nanoTime();
+
+        var author = userCache.findById(UUID.fromString(token.getName()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuário não encontrado"));
+        var user = entityManager.getReference(User.class, author.userId());
+
+        var results = new ArrayList<BatchMessageResultDto>(dtos.size());
+        var messages = new ArrayList<Message>(dtos.size());
+        var indexes = new ArrayList<Integer>(dtos.size());
+
+        for (int i = 0; i < dtos.size(); i++) {
+            var dto = dtos.get(i);
+
+            var erro = erroDeConteudo(dto);
+            if (erro != null) {
+                results.add(new BatchMessageResultDto(i, null, erro));
+                continue;
+            }
+
+            var message = new Message();
+            message.setUser(user);
+            message.setContent(dto.content());
+            messages.add(message);
+            indexes.add(i);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < messages.size(); i++) {
+                entityManager.persist(messages.get(i));
+
+                // Envia o bloco ao banco e libera o contexto de persistência para lotes grandes não acumularem entidades
+                if ((i + 1) % Message.ID_ALLOCATION_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+
+        for (int i = 0; i < messages.size(); i++) {
+            var message = messages.get(i);
+            results.add(new BatchMessageResultDto(indexes.get(i), message.getMessageId(), null));
+            publicarMensagem(message, author.username());
+        }
+
+        results.sort(Comparator.comparingInt(BatchMessageResultDto::index));
+
+        var elapsedNanos = System.nanoTime() - start;
+        var perSecond = elapsedNanos == 0 ? 0 : messages.size() * 1_000_000_000d / elapsedNanos;
+
+        return new BatchMessagesResponse(results, messages.size(), dtos.size() - messages.size(),
+                elapsedNanos / 1_000_000, perSecond);
+    }
+
+    // Após a gravação, a nova mensagem é refletida no cache do feed, no feed ao vivo e no índice de busca
+    private void publicarMensagem(Message message, String username) {
+        messageEvents.created(new FeedItemDto(
+                message.getMessageId(), message.getContent(), username, message.getCreationTimestamp()));
+    }
+
+    // Remove a mensagem se o usuário do token for o dono ou admin, em um único DELETE condicional
+    // Só quando nada foi removido é feita uma segunda consulta, para diferenciar 404 (não existe) de 403 (sem permissão)
+    public void removerMensagem(Long messageId, JwtAuthenticationToken token) {
+
+        var removed = messageRepository.deleteAuthorized(messageId, UUID.fromString(token.getName()), isAdmin(token));
+
+        if (removed == 0) {
+            if (!messageRepository.existsById(messageId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+
+        messageEvents.deleted(messageId);
+    }
+
+    // Remoção em lote com as mesmas regras da remoção individual; ids inexistentes ou sem permissão são ignorados e informados na resposta
+    public DeleteMessagesResponse removerMensagens(List<Long> messageIds, JwtAuthenticationToken token) {
+
+        var userId = UUID.fromString(token.getName());
+        var admin = isAdmin(token);
+        var ids = messageIds.stream().distinct().toList();
+
+        // Dois comandos porque a resposta precisa dizer quais ids foram removidos e o MySQL não tem UPDATE ... RETURNING:
+        // o SELECT trava as linhas autorizadas e o UPDATE em lote as remove, sem corrida entre os dois
+        var deleted = ids.isEmpty() ? List.<Long>of() : transactionTemplate.execute(status -> {
+            var authorized = messageRepository.findAuthorizedIds(ids, userId, admin);
+            if (!authorized.isEmpty()) {
+                messageRepository.deleteAllAuthorized(authorized, userId, admin);
+            }
+            return authorized;
+        });
+
+        deleted.forEach(messageEvents::deleted);
+
+        // Conjunto para a diferença não ser O(n²) em lotes grandes
+        var deletedIds = new HashSet<>(deleted);
+        var notDeleted = ids.stream().filter(id -> !deletedIds.contains(id)).toList();
+        return new DeleteMessagesResponse(deleted, notDeleted);
+    }
+
+    // Moderação: remove (logicamente) todas as mensagens de um usuário em um único UPDATE, sem ler os ids
+    // As linhas são apagadas fisicamente depois, em blocos, pelo MessagePurger
+    public int removerMensagensDoUsuario(UUID userId) {
+
+        var removed = messageRepository.softDeleteAllByUserId(userId);
+
+        if (removed > 0) {
+            messageEvents.userDeleted(userId, userCache.findById(userId).map(UserSnapshot::username).orElse(null));
+        }
+
+        return removed;
+    }
+
+    // A permissão de admin vem do scope do próprio token (SCOPE_admin), sem consultar as roles no banco
+    private static boolean isAdmin(JwtAuthenticationToken token) {
+        return token.getAuthorities()
+                .stream()
+                .anyMatch(authority -> authority.getAuthority().equalsIgnoreCase("SCOPE_" + Role.Values.ADMIN.name()));
+    }
+
+    // Exporta as mensagens criadas a partir de since como JSON delimitado por nova linha (NDJSON)
+    // Cada linha é escrita assim que lida do cursor e a entidade é desanexada em seguida,
+    // então o consumo de memória não depende do tamanho de tb_messages
+    @Transactional(readOnly = true)
+    public long exportarMensagens(Instant since, OutputStream outputStream) throws IOException {
+
+        var out = new BufferedOutputStream(outputStream);
+        long count = 0;
+
+        try (var messages = messageRepository.streamAllSince(since)) {
+            var iterator = messages.iterator();
+
+            while (iterator.hasNext()) {
+                var message = iterator.next();
+
+                // getUserId() no proxy LAZY não inicializa o User, apenas lê a chave estrangeira
+                out.write(objectMapper.writeValueAsBytes(new MessageExportDto(
+                        message.getMessageId(),
+                        message.getUser().getUserId(),
+                        message.getContent(),
+                        message.getCreationTimestamp())));
+                out.write('\n');
+
+                entityManager.detach(message);
+                count++;
+            }
+        }
+
+        out.flush();
+        return count;
+    }
+
 }
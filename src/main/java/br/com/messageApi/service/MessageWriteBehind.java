@@ -0,0 +1,241 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.AuthorDto;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.dto.FeedItemDto;
+import br.com.messageApi.dto.MessageAcceptedDto;
+import br.com.messageApi.entities.Message;
+import br.com.messageApi.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Modo assíncrono de POST /messages (messages.ingest.async=true): a requisição apenas reserva o id e enfileira a mensagem,
+// e uma única thread grava a fila em grupo (até batch-size mensagens por transação, a cada flush-interval),
+// eliminando o commit por requisição no caminho de escrita
+// Fila cheia gera 429 em vez de crescer sem limite; no desligamento a fila é esvaziada antes de encerrar
+@Component
+public class MessageWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageWriteBehind.class);
+
+    private static final String INSERT_SQL =
+            "insert into tb_messages (message_id, user_id, content, creation_timestamp, deleted) values (?, ?, ?, ?, false)";
+
+    // O Hibernate grava Instant em UTC no MySQL; o insert via JDBC precisa usar o mesmo fuso
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final MessageEvents messageEvents;
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator idGenerator;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<PendingMessage> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public MessageWriteBehind(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              UserRepository userRepository,
+                              MessageEvents messageEvents,
+                              EntityManagerFactory entityManagerFactory,
+                              @Value("${messages.ingest.async:false}") boolean enabled,
+                              @Value("${messages.ingest.queue-capacity:10000}") int queueCapacity,
+                              @Value("${messages.ingest.batch-size:200}") int batchSize,
+                              @Value("${messages.ingest.flush-interval:5ms}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userRepository = userRepository;
+        this.messageEvents = messageEvents;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.idGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Message.class)
+                .getGenerator();
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    private record PendingMessage(long messageId, UUID userId, String content, Instant creationTimestamp) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        writer = Thread.ofPlatform().name("message-write-behind").start(this::run);
+    }
+
+    public MessageAcceptedDto enqueue(CreateMessagetDto dto, JwtAuthenticationToken token) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Gravação de mensagens encerrada");
+        }
+
+        // Validado aqui, antes do 202: um conteúdo inválido não pode ser aceito e descartado depois pela thread de gravação
+        MessageService.validarConteudo(dto);
+
+        // O id vem da mesma sequência pooled usada pelo Hibernate, normalmente sem ida ao banco
+        var pending = new PendingMessage(nextId(), UUID.fromString(token.getName()), dto.content(), Instant.now());
+
+        if (!queue.offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Fila de mensagens cheia, tente novamente");
+        }
+
+        return new MessageAcceptedDto(pending.messageId());
+    }
+
+    // Para de aceitar mensagens e espera a thread de gravação esvaziar a fila
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        writer.join();
+    }
+
+    private void run() {
+        var batch = new ArrayList<PendingMessage>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+
+                // Aguarda até o fim do intervalo para agrupar mais mensagens, sem passar de batch-size
+                var deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    var remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar {} mensagens da fila", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), MessageWriteBehind::bind));
+        } catch (DataAccessException e) {
+            // Um item inválido (ex.: usuário removido) não pode descartar o grupo inteiro: grava um a um
+            log.warn("Falha na gravação em grupo de {} mensagens, gravando individualmente", batch.size(), e);
+            published(batch.stream().filter(this::flushOne).toList());
+            return;
+        }
+
+        published(batch);
+    }
+
+    private boolean flushOne(PendingMessage message) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, message));
+            return true;
+        } catch (DataAccessException e) {
+            log.error("Mensagem {} descartada", message.messageId(), e);
+            return false;
+        }
+    }
+
+    // user_id é BINARY(16) no MySQL (mapeamento de UUID do Hibernate): 8 bytes mais significativos seguidos dos 8 menos significativos
+    private static void bind(PreparedStatement ps, PendingMessage message) throws SQLException {
+        var userId = ByteBuffer.allocate(16)
+                .putLong(message.userId().getMostSignificantBits())
+                .putLong(message.userId().getLeastSignificantBits())
+                .array();
+
+        ps.setLong(1, message.messageId());
+        ps.setBytes(2, userId);
+        ps.setString(3, message.content());
+        ps.setTimestamp(4, Timestamp.from(message.creationTimestamp()), UTC);
+    }
+
+    private void published(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        var authors = userRepository.findAuthors(batch.stream().map(PendingMessage::userId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(AuthorDto::userId, Function.identity()));
+
+        for (var message : batch) {
+            var author = authors.get(message.userId());
+            messageEvents.created(new FeedItemDto(message.messageId(), message.content(),
+                    author == null ? null : author.username(), message.creationTimestamp()));
+        }
+    }
+
+    private long nextId() {
+        try (var session = sessionFactory.openStatelessSession()) {
+            var id = idGenerator.generate((SharedSessionContractImplementor) session, null, null, EventType.INSERT);
+            return ((Number) id).longValue();
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package br.com.messageApi.service;
 
 import br.com.messageApi.config.EmailTemplate;
-import br.com.messageApi.config.SecurityConfig;
-import br.com.messageApi.config.SendEmail;
+import br.com.messageApi.config.OtpTokens;
 import br.com.messageApi.dto.ResponseOtpDTO;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
-import jakarta.mail.MessagingException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -17,13 +18,18 @@ import java.util.Random;
 @Service
 public class OTPService {
 
-    private final SendEmail sendEmail;
+    private static final String EMAIL_SUBJECT = "Redefinição de Senha";
+
+    private final EmailOutboxService emailOutboxService;
 
 	private final EmailTemplate template;
 
-    public OTPService(SendEmail sendEmail, EmailTemplate template) {
-        this.sendEmail = sendEmail;
+	private final OtpTokens otpTokens;
+
+    public OTPService(EmailOutboxService emailOutboxService, EmailTemplate template, OtpTokens otpTokens) {
+        this.emailOutboxService = emailOutboxService;
         this.template = template;
+        this.otpTokens = otpTokens;
     }
 
     public Map<String, String> generateOtp(String email) {
@@ -33,48 +39,54 @@ public class OTPService {
 		Map<String, String> response = new HashMap<>();
 
 		response.put("otp", otp);
-		response.put("token", SecurityConfig.createToken(email, otp));
+		response.put("token", otpTokens.createToken(email, otp));
 
 		return response;
 
     }
 
+	// Uma única verificação do token (assinatura e expiração); o OTP é comparado em tempo constante
+	// e o token só é aceito uma vez
 	public Map<String, Object> validateOtp(String token, String userEnteredOtp) {
 
 		Map<String, Object> response = new HashMap<>();
 
-		// First check if token is valid (not expired and properly signed)
-		if (!SecurityConfig.isTokenValid(token)) {
+		Claims claims;
+		try {
+			claims = otpTokens.parseToken(token);
+		} catch (JwtException | IllegalArgumentException e) {
 			response.put("valid", false);
 			response.put("error", "Invalid or expired token");
 			return response;
 		}
 
-		try {
-			Map<String, Object> claims = SecurityConfig.parseToken(token);
-
-			String storedOtp = (String) claims.get("otp");
-			boolean isOtpValid = storedOtp.equals(userEnteredOtp);
+		String storedOtp = claims.get("otp", String.class);
+		boolean isOtpValid = storedOtp != null && userEnteredOtp != null
+				&& MessageDigest.isEqual(storedOtp.getBytes(StandardCharsets.UTF_8), userEnteredOtp.getBytes(StandardCharsets.UTF_8));
 
-			response.put("valid", isOtpValid);
-			response.put("email", claims.get("email"));
-		} catch (JwtException e) {
+		if (isOtpValid && !otpTokens.markUsed(claims)) {
 			response.put("valid", false);
-			response.put("error", "Invalid or expired token");
+			response.put("error", "Token already used");
+			return response;
 		}
 
+		response.put("valid", isOtpValid);
+		response.put("email", claims.get("email"));
+
 		return response;
 	}
 
-    public ResponseOtpDTO sendEmail(String email) throws MessagingException {
+	// O e-mail é gravado na fila de saída junto com a transação da requisição e enviado pelo EmailDispatcher,
+	// então a resposta não espera o servidor SMTP
+    public ResponseOtpDTO sendEmail(String email) {
 
 		Map<String, String> token = generateOtp(email);
 
 		var emailTemplate = template.emailTemplateBuilder(email, token.get("otp"));
 
-        sendEmail.send(email, emailTemplate);
+        emailOutboxService.enqueue(email, EMAIL_SUBJECT, emailTemplate);
 
-        return new ResponseOtpDTO(token.get("token"), token.get("otp"), "Email enviado com sucesso!");
+        return new ResponseOtpDTO(token.get("token"), token.get("otp"), "Email agendado para envio!");
     }
 
 
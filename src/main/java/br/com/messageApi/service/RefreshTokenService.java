@@ -0,0 +1,211 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.RefreshTokenDto;
+import br.com.messageApi.entities.RefreshToken;
+import br.com.messageApi.entities.User;
+import br.com.messageApi.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Refresh tokens com rotação: cada uso devolve um novo token da mesma família e invalida o anterior
+// O uso único é garantido pelo update condicional no banco, então vale entre nós; reapresentar um token já usado revoga a família
+// Um cache limitado (hash -> dono/família/expiração) evita o select do token na renovação; a renovação nunca lê o hash da senha
+// Cada token vale ttl, mas nunca além de max-lifetime desde o login que iniciou a família: depois disso é preciso logar de novo
+// Tokens usados ficam reuse-detection-window na tabela para detectar reuso; passado esse tempo, reapresentá-los só é rejeitado
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration maxLifetime;
+    private final Duration reuseDetectionWindow;
+    private final int cacheMaxSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ConcurrentHashMap<String, RefreshTokenDto> cache = new ConcurrentHashMap<>();
+
+    private final Counter rotated;
+    private final Counter rejected;
+    private final Counter reused;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${jwt.refresh.ttl:14d}") Duration ttl,
+                               @Value("${jwt.refresh.max-lifetime:30d}") Duration maxLifetime,
+                               @Value("${jwt.refresh.reuse-detection-window:1d}") Duration reuseDetectionWindow,
+                               @Value("${jwt.refresh.cache.max-size:10000}") int cacheMaxSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.maxLifetime = maxLifetime;
+        this.reuseDetectionWindow = reuseDetectionWindow;
+        this.cacheMaxSize = cacheMaxSize;
+
+        this.rotated = meterRegistry.counter("auth.refresh", "result", "rotated");
+        this.rejected = meterRegistry.counter("auth.refresh", "result", "rejected");
+        this.reused = meterRegistry.counter("auth.refresh", "result", "reused");
+        Gauge.builder("auth.refresh.cache.size", cache, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    // Resultado da renovação: dono do token e o novo refresh token
+    public record Rotation(UUID userId, String refreshToken) {
+    }
+
+    private record Issued(String token, RefreshTokenDto entry) {
+    }
+
+    // Novo token no login, iniciando uma família
+    public String issue(UUID userId) {
+        var issued = transactionTemplate.execute(status -> create(userId, UUID.randomUUID(), Instant.now()));
+        return cached(issued);
+    }
+
+    public Rotation rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            rejected.increment();
+            throw new BadCredentialsException("refresh token is invalid!");
+        }
+
+        var hash = hash(refreshToken);
+        var current = cache.get(hash);
+
+        if (current == null) {
+            current = refreshTokenRepository.findByHash(hash).orElse(null);
+        }
+
+        var now = Instant.now();
+
+        if (current == null || !now.isBefore(current.expiresAt())) {
+            cache.remove(hash);
+            rejected.increment();
+            throw new BadCredentialsException("refresh token is invalid!");
+        }
+
+        var token = current;
+        var next = transactionTemplate.execute(status ->
+                refreshTokenRepository.markUsed(hash, now) == 1 ? create(token.userId(), token.familyId(), token.familyIssuedAt()) : null);
+
+        cache.remove(hash);
+
+        if (next == null) {
+            // Token já usado: alguém mais tem uma cópia dele, então nenhum token da família continua válido
+            refreshTokenRepository.deleteFamily(token.familyId());
+            cache.values().removeIf(entry -> entry.familyId().equals(token.familyId()));
+            reused.increment();
+            log.warn("Reuso de refresh token detectado para o usuário {}, família {} revogada", token.userId(), token.familyId());
+            throw new BadCredentialsException("refresh token is invalid!");
+        }
+
+        rotated.increment();
+        return new Rotation(token.userId(), cached(next));
+    }
+
+    // Logout: o refresh token apresentado e todos os da mesma família deixam de valer, se pertencerem ao usuário
+    public void revoke(String refreshToken, UUID userId) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+
+        var hash = hash(refreshToken);
+        var token = cache.get(hash);
+        if (token == null) {
+            token = refreshTokenRepository.findByHash(hash).orElse(null);
+        }
+
+        if (token != null && token.userId().equals(userId)) {
+            var familyId = token.familyId();
+            refreshTokenRepository.deleteFamily(familyId);
+            cache.values().removeIf(entry -> entry.familyId().equals(familyId));
+        }
+    }
+
+    public void revokeAll(UUID userId) {
+        refreshTokenRepository.deleteAllByUserId(userId);
+        cache.values().removeIf(entry -> entry.userId().equals(userId));
+    }
+
+    // Tokens vencidos já não servem nem para detectar reuso; os usados só servem para isso dentro da janela
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        var now = Instant.now();
+        var removed = refreshTokenRepository.deleteExpired(now);
+        removed += refreshTokenRepository.deleteUsedBefore(now.minus(reuseDetectionWindow));
+
+        if (removed > 0) {
+            log.info("Refresh tokens vencidos ou usados removidos: {}", removed);
+        }
+    }
+
+    private Issued create(UUID userId, UUID familyId, Instant familyIssuedAt) {
+        var bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        var hash = hash(token);
+        var now = Instant.now();
+        var familyExpiresAt = familyIssuedAt.plus(maxLifetime);
+        var expiresAt = now.plus(ttl).isBefore(familyExpiresAt) ? now.plus(ttl) : familyExpiresAt;
+
+        refreshTokenRepository.save(new RefreshToken(hash, entityManager.getReference(User.class, userId), familyId,
+                familyIssuedAt, now, expiresAt));
+
+        return new Issued(token, new RefreshTokenDto(hash, userId, familyId, familyIssuedAt, expiresAt));
+    }
+
+    // Só entra no cache depois do commit
+    private String cached(Issued issued) {
+        if (cache.size() >= cacheMaxSize) {
+            evict(Instant.now());
+        }
+        cache.put(issued.entry().tokenHash(), issued.entry());
+
+        return issued.token();
+    }
+
+    // Remove as entradas vencidas; se ainda assim o cache estiver cheio, descarta tudo (os tokens são lidos do banco)
+    private void evict(Instant now) {
+        cache.values().removeIf(entry -> !now.isBefore(entry.expiresAt()));
+
+        if (cache.size() >= cacheMaxSize) {
+            cache.clear();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
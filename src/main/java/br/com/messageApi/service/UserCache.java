@@ -0,0 +1,153 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.UserSnapshot;
+import br.com.messageApi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cache limitado e com expiração de snapshots imutáveis dos usuários (id, username, hash da senha e roles), consultado por
+// /login, /token/refresh, /esqueci-a-senha e POST /messages no lugar de findByUsername/findById (que trazem o join EAGER das roles)
+// Alteração de senha ou remoção via JPA invalida a entrada após o commit (UserCacheListener); a troca de roles não gera UPDATE
+// em tb_users, então é feita por UserService.alterarRoles, que chama invalidate. Alterações fora do JPA também devem chamar
+// invalidate. O cache é local a cada nó: nos demais a alteração vale após o ttl
+// Usuários inexistentes não são guardados
+@Service
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final ConcurrentHashMap<UUID, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> byUsername = new ConcurrentHashMap<>();
+
+    // Incrementado a cada invalidação: um snapshot lido do banco antes dela não entra no cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loadTime;
+
+    public UserCache(UserRepository userRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${users.cache.ttl:30s}") Duration ttl,
+                     @Value("${users.cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+
+        this.hits = meterRegistry.counter("users.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("users.cache.requests", "result", "miss");
+        this.loadTime = meterRegistry.timer("users.cache.load");
+        Gauge.builder("users.cache.size", byId, ConcurrentHashMap::size).register(meterRegistry);
+        Gauge.builder("users.cache.hit.ratio", this, UserCache::hitRatio).register(meterRegistry);
+    }
+
+    private record Entry(UserSnapshot snapshot, long expiresAt) {
+    }
+
+    public Optional<UserSnapshot> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+
+        // A coluna username não diferencia maiúsculas de minúsculas no MySQL
+        var entry = byUsername.get(key(username));
+        return cached(entry).or(() -> load(() -> userRepository.findSnapshotByUsername(username)));
+    }
+
+    public Optional<UserSnapshot> findById(UUID userId) {
+        var entry = byId.get(userId);
+        return cached(entry).or(() -> load(() -> userRepository.findSnapshotById(userId)));
+    }
+
+    // Dentro de uma transação a remoção acontece após o commit, para que nenhuma leitura anterior a ele volte a guardar o valor antigo
+    public void invalidate(UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+        remove(userId);
+    }
+
+    private Optional<UserSnapshot> cached(Entry entry) {
+        if (entry != null && System.nanoTime() - entry.expiresAt() < 0) {
+            hits.increment();
+            return Optional.of(entry.snapshot());
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    private Optional<UserSnapshot> load(Supplier<Optional<UserSnapshot>> loader) {
+        var generation = invalidations.get();
+        var snapshot = loadTime.record(loader);
+
+        if (snapshot.isPresent() && invalidations.get() == generation) {
+            put(snapshot.get());
+        }
+        return snapshot;
+    }
+
+    private void put(UserSnapshot snapshot) {
+        var now = System.nanoTime();
+
+        if (byId.size() >= maxSize) {
+            evict(now);
+        }
+
+        var entry = new Entry(snapshot, now + ttlNanos);
+        byId.put(snapshot.userId(), entry);
+        byUsername.put(key(snapshot.username()), entry);
+    }
+
+    private void remove(UUID userId) {
+        invalidations.incrementAndGet();
+
+        var entry = byId.remove(userId);
+        if (entry != null) {
+            byUsername.remove(key(entry.snapshot().username()), entry);
+        }
+        // O username pode ter sido guardado por outra leitura sem a entrada por id correspondente
+        byUsername.values().removeIf(other -> other.snapshot().userId().equals(userId));
+    }
+
+    // Remove as entradas vencidas; se ainda assim o cache estiver cheio, descarta tudo
+    private void evict(long now) {
+        byId.values().removeIf(entry -> now - entry.expiresAt() >= 0);
+        byUsername.values().removeIf(entry -> now - entry.expiresAt() >= 0);
+
+        if (byId.size() >= maxSize) {
+            byId.clear();
+            byUsername.clear();
+        }
+    }
+
+    private double hitRatio() {
+        var total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.entities.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Listener JPA de User, criado pelo Spring via SpringBeanContainer do Hibernate: alteração de colunas de tb_users (ex.: senha)
+// ou remoção do usuário invalida o snapshot no UserCache
+// Alterar apenas as roles não dispara @PostUpdate (só a tabela de junção muda); UserService.alterarRoles invalida explicitamente
+// O UserCache é obtido só no uso: o listener é criado junto com o EntityManagerFactory, do qual o UserCache depende
+public class UserCacheListener {
+
+    private final ObjectProvider<UserCache> userCache;
+
+    public UserCacheListener(ObjectProvider<UserCache> userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void changed(User user) {
+        userCache.getObject().invalidate(user.getUserId());
+    }
+}
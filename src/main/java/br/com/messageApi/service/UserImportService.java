@@ -0,0 +1,388 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.config.RoleRegistry;
+import br.com.messageApi.dto.CreateUserDto;
+import br.com.messageApi.dto.UserImportFailureDto;
+import br.com.messageApi.dto.UserImportResponse;
+import br.com.messageApi.entities.Role;
+import br.com.messageApi.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Importação de usuários em massa (POST /users/import) a partir de um CSV ou JSON lido em streaming
+// A entrada é processada em blocos de chunk-size linhas: usernames repetidos na própria importação são descartados em memória
+// e os já cadastrados com uma consulta por bloco, antes do BCrypt, que é a parte cara. As senhas do bloco são codificadas em
+// paralelo em um ForkJoinPool (work-stealing, um thread por núcleo) e o bloco é gravado com inserts JDBC em lote
+// Se o lote falhar (ex.: username cadastrado por outra requisição entre a consulta e o insert, barrado pelo índice único),
+// o bloco é gravado linha a linha para que só as linhas com problema sejam rejeitadas
+// Uma importação por vez: ela ocupa todos os núcleos durante o BCrypt
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String INSERT_USER_SQL = "insert into tb_users (user_id, username, password) values (?, ?, ?)";
+    private static final String INSERT_USER_ROLE_SQL = "insert into tb_users_roles (user_id, role_id) values (?, ?)";
+
+    private static final String CSV_HEADER = "username,password";
+
+    // Tamanho da coluna username (VARCHAR(255))
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final ForkJoinPool hashingPool;
+    private final int chunkSize;
+    private final int maxReportedFailures;
+    private final Semaphore importing = new Semaphore(1);
+
+    private final Timer importTime;
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    public UserImportService(UserRepository userRepository,
+                             RoleRegistry roleRegistry,
+                             BCryptPasswordEncoder passwordEncoder,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${users.import.parallelism:0}") int parallelism,
+                             @Value("${users.import.chunk-size:1000}") int chunkSize,
+                             @Value("${users.import.max-reported-failures:1000}") int maxReportedFailures) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.hashingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = chunkSize;
+        this.maxReportedFailures = maxReportedFailures;
+
+        this.importTime = meterRegistry.timer("users.import.time");
+        this.importedRows = meterRegistry.counter("users.import.rows", "result", "imported");
+        this.rejectedRows = meterRegistry.counter("users.import.rows", "result", "rejected");
+    }
+
+    // Linha lida da entrada; error preenchido quando a própria linha é inválida
+    private record ImportRow(int row, String username, String password, String error) {
+    }
+
+    private record PendingUser(ImportRow row, UUID userId, String passwordHash) {
+    }
+
+    // Resultado acumulado de uma importação
+    private final class Report {
+
+        private final List<UserImportFailureDto> failures = new ArrayList<>();
+        private int imported;
+        private int rejected;
+
+        private void reject(ImportRow row, String error) {
+            rejected++;
+            if (failures.size() < maxReportedFailures) {
+                failures.add(new UserImportFailureDto(row.row(), row.username(), error));
+            }
+        }
+    }
+
+    // CSV com uma linha "username,password" por usuário (cabeçalho opcional); a senha é tudo o que vem depois da primeira vírgula
+    public UserImportResponse importarCsv(InputStream input) {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return importar(csvRows(reader));
+    }
+
+    // Array JSON de {"username", "password"} ou NDJSON (um objeto por linha)
+    public UserImportResponse importarJson(InputStream input) throws IOException {
+        var users = objectMapper.readerFor(CreateUserDto.class).<CreateUserDto>readValues(input);
+        return importar(jsonRows(users));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    private UserImportResponse importar(Iterator<ImportRow> rows) {
+        if (!importing.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Já existe uma importação de usuários em andamento");
+        }
+
+        try {
+            var start = System.nanoTime();
+            var report = new Report();
+            var roleId = roleRegistry.roleId(Role.Values.BASIC);
+
+            var seen = new HashSet<String>();
+            var chunk = new ArrayList<ImportRow>(chunkSize);
+
+            while (rows.hasNext()) {
+                var row = rows.next();
+                var error = validate(row, seen);
+
+                if (error != null) {
+                    report.reject(row, error);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importarBloco(chunk, roleId, report);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                importarBloco(chunk, roleId, report);
+            }
+
+            // Rejeições do bloco (username já cadastrado) chegam depois das de validação das linhas seguintes
+            report.failures.sort(Comparator.comparingInt(UserImportFailureDto::row));
+
+            var elapsedNanos = System.nanoTime() - start;
+            var perSecond = elapsedNanos == 0 ? 0 : (report.imported + report.rejected) * 1_000_000_000d / elapsedNanos;
+
+            importTime.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            importedRows.increment(report.imported);
+            rejectedRows.increment(report.rejected);
+            log.info("Importação de usuários: {} importados, {} rejeitados em {} ms ({} linhas/s)",
+                    report.imported, report.rejected, elapsedNanos / 1_000_000, Math.round(perSecond));
+
+            return new UserImportResponse(report.failures, report.imported, report.rejected, elapsedNanos / 1_000_000, perSecond);
+        } finally {
+            importing.release();
+        }
+    }
+
+    private static String validate(ImportRow row, Set<String> seen) {
+        if (row.error() != null) {
+            return row.error();
+        }
+        if (row.username() == null || row.username().isBlank()) {
+            return "O campo 'username' é obrigatório";
+        }
+        if (row.username().length() > MAX_USERNAME_LENGTH) {
+            return "O campo 'username' excede " + MAX_USERNAME_LENGTH + " caracteres";
+        }
+        if (row.password() == null || row.password().isEmpty()) {
+            return "O campo 'password' é obrigatório";
+        }
+        // A coluna username não diferencia maiúsculas de minúsculas no MySQL
+        if (!seen.add(row.username().toLowerCase(Locale.ROOT))) {
+            return "Username repetido na importação";
+        }
+        return null;
+    }
+
+    private void importarBloco(List<ImportRow> chunk, long roleId, Report report) {
+        var existing = userRepository.findExistingUsernames(chunk.stream().map(ImportRow::username).toList())
+                .stream()
+                .map(username -> username.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        var candidates = new ArrayList<ImportRow>(chunk.size());
+        for (var row : chunk) {
+            if (existing.contains(row.username().toLowerCase(Locale.ROOT))) {
+                report.reject(row, "Username já cadastrado");
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        var pending = hash(candidates);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(pending, roleId));
+            report.imported += pending.size();
+        } catch (DataAccessException e) {
+            log.warn("Falha na gravação em lote de {} usuários, gravando individualmente", pending.size(), e);
+
+            for (var user : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(user), roleId));
+                    report.imported++;
+                } catch (DuplicateKeyException duplicate) {
+                    report.reject(user.row(), "Username já cadastrado");
+                } catch (DataAccessException failure) {
+                    report.reject(user.row(), failure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // BCrypt de cada senha como uma tarefa do ForkJoinPool; threads ociosas roubam tarefas das ocupadas
+    private List<PendingUser> hash(List<ImportRow> rows) {
+        var tasks = rows.stream()
+                .<Callable<PendingUser>>map(row -> () -> new PendingUser(row, UUID.randomUUID(), passwordEncoder.encode(row.password())))
+                .toList();
+
+        var pending = new ArrayList<PendingUser>(rows.size());
+        try {
+            for (var future : hashingPool.invokeAll(tasks)) {
+                pending.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return pending;
+    }
+
+    private void insert(List<PendingUser> users, long roleId) {
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, users, users.size(), (ps, user) -> {
+            ps.setBytes(1, uuidBytes(user.userId()));
+            ps.setString(2, user.row().username());
+            ps.setString(3, user.passwordHash());
+        });
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE_SQL, users, users.size(), (ps, user) -> {
+            ps.setBytes(1, uuidBytes(user.userId()));
+            ps.setLong(2, roleId);
+        });
+    }
+
+    // user_id é BINARY(16) no MySQL (mapeamento de UUID do Hibernate): 8 bytes mais significativos seguidos dos 8 menos significativos
+    private static byte[] uuidBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static Iterator<ImportRow> csvRows(BufferedReader reader) {
+        return new Iterator<>() {
+
+            private int lineNumber;
+            private ImportRow next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    String line;
+                    try {
+                        line = reader.readLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+
+                    if (line == null) {
+                        return false;
+                    }
+                    lineNumber++;
+
+                    if (line.isBlank() || (lineNumber == 1 && line.trim().equalsIgnoreCase(CSV_HEADER))) {
+                        continue;
+                    }
+
+                    var comma = line.indexOf(',');
+                    next = comma < 0
+                            ? new ImportRow(lineNumber, line.trim(), null, "Linha inválida, use o formato username,password")
+                            : new ImportRow(lineNumber, line.substring(0, comma).trim(), line.substring(comma + 1), null);
+                }
+                return true;
+            }
+
+            @Override
+            public ImportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var row = next;
+                next = null;
+                return row;
+            }
+        };
+    }
+
+    // JSON malformado encerra a leitura com uma linha rejeitada; os blocos anteriores já foram gravados
+    // Um item que é JSON válido mas não é um usuário (null, tipos trocados) rejeita só aquele item: o MappingIterator
+    // descarta o valor e segue para o próximo
+    private static Iterator<ImportRow> jsonRows(Iterator<CreateUserDto> users) {
+        return new Iterator<>() {
+
+            private int index;
+            private boolean failed;
+
+            @Override
+            public boolean hasNext() {
+                if (failed) {
+                    return false;
+                }
+                try {
+                    return users.hasNext();
+                } catch (RuntimeException e) {
+                    failed = true;
+                    return true;
+                }
+            }
+
+            @Override
+            public ImportRow next() {
+                index++;
+                if (failed) {
+                    return new ImportRow(index, null, null, "JSON inválido, leitura interrompida");
+                }
+                try {
+                    var user = users.next();
+                    return user == null
+                            ? new ImportRow(index, null, null, "Item nulo")
+                            : new ImportRow(index, user.username(), user.password(), null);
+                } catch (RuntimeJsonMappingException e) {
+                    return new ImportRow(index, null, null, "Item inválido, use {\"username\", \"password\"}");
+                } catch (RuntimeException e) {
+                    failed = true;
+                    return new ImportRow(index, null, null, "JSON inválido, leitura interrompida");
+                }
+            }
+        };
+    }
+}
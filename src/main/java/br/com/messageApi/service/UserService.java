@@ -0,0 +1,133 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.config.RoleRegistry;
+import br.com.messageApi.dto.UserCursor;
+import br.com.messageApi.dto.UserPageDto;
+import br.com.messageApi.dto.UserSummaryDto;
+import br.com.messageApi.entities.Role;
+import br.com.messageApi.entities.User;
+import br.com.messageApi.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class UserService {
+
+    // Tamanho de cada página lida do banco na exportação NDJSON
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final UserCache userCache;
+    private final ObjectMapper objectMapper;
+
+    public UserService(UserRepository userRepository, RoleRegistry roleRegistry, UserCache userCache, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.userCache = userCache;
+        this.objectMapper = objectMapper;
+    }
+
+    // Cadastro com um único INSERT do usuário (mais a linha em tb_users_roles): a role vem do RoleRegistry e o username repetido
+    // é detectado pelo índice único no insert, sem consulta prévia (que também seria sujeita a corrida entre cadastros simultâneos)
+    // Recebe a senha já com hash: o BCrypt roda fora desta transação
+    @Transactional
+    public void cadastrarUsuario(String username, String passwordHash) {
+
+        var user = new User();
+        user.setUsername(username);
+        user.setPassword(passwordHash);
+        user.setRoles(Set.of(roleRegistry.reference(Role.Values.BASIC)));
+
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    // Substitui as roles do usuário. Alterar só a coleção @ManyToMany não gera UPDATE em tb_users (apenas comandos em
+    // tb_users_roles), então o @PostUpdate do UserCacheListener não dispara: a invalidação do UserCache é feita aqui, após o commit
+    @Transactional
+    public void alterarRoles(UUID userId, Set<Role.Values> roles) {
+
+        if (roles == null || roles.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ao menos uma role");
+        }
+
+        var user = userRepository.findById(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        // A coleção carregada é alterada no lugar: o Hibernate grava só a diferença em tb_users_roles
+        var references = new HashSet<Role>();
+        for (var role : roles) {
+            references.add(roleRegistry.reference(role));
+        }
+        user.getRoles().retainAll(references);
+        user.getRoles().addAll(references);
+
+        userCache.invalidate(userId);
+    }
+
+    // Paginação keyset por username, sem OFFSET e sem COUNT(*); cursor null retorna a primeira página
+    public UserPageDto listarUsuarios(UserCursor cursor, int pageSize) {
+        var users = page(cursor, pageSize + 1);
+
+        var hasNext = users.size() > pageSize;
+        var itens = hasNext ? users.subList(0, pageSize) : users;
+
+        return new UserPageDto(itens, pageSize, hasNext ? nextCursor(itens).encode() : null);
+    }
+
+    // Exporta todos os usuários como JSON delimitado por nova linha (NDJSON), percorrendo a tabela em páginas keyset
+    // Cada página é escrita e descartada antes da próxima consulta, então o consumo de memória não depende do tamanho de tb_users
+    // e nenhuma transação fica aberta durante a escrita da resposta
+    public long exportarUsuarios(OutputStream outputStream) throws IOException {
+
+        var out = new BufferedOutputStream(outputStream);
+        UserCursor cursor = null;
+        long count = 0;
+
+        while (true) {
+            var users = page(cursor, EXPORT_CHUNK_SIZE);
+
+            for (var user : users) {
+                out.write(objectMapper.writeValueAsBytes(user));
+                out.write('\n');
+            }
+            count += users.size();
+
+            if (users.size() < EXPORT_CHUNK_SIZE) {
+                break;
+            }
+            cursor = nextCursor(users);
+        }
+
+        out.flush();
+        return count;
+    }
+
+    private List<UserSummaryDto> page(UserCursor cursor, int size) {
+        var limit = PageRequest.ofSize(size);
+
+        return cursor == null
+                ? userRepository.findSummariesFirst(limit)
+                : userRepository.findSummariesAfter(cursor.username(), limit);
+    }
+
+    private static UserCursor nextCursor(List<UserSummaryDto> users) {
+        return new UserCursor(users.get(users.size() - 1).username());
+    }
+}
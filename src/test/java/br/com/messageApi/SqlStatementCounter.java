@@ -0,0 +1,40 @@
+package br.com.messageApi;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Registra os comandos SQL preparados pelo Hibernate na thread que chamou capture, ignorando as tarefas agendadas
+// que rodam em paralelo nos testes (dispatcher de e-mails, recarga de revogações, expurgo)
+// Registrado em src/test/resources/application.properties (hibernate.session_factory.statement_inspector)
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public static List<String> capture(Action action) throws Exception {
+        var captured = new ArrayList<String>();
+        statements.set(captured);
+
+        try {
+            action.run();
+        } finally {
+            statements.remove();
+        }
+        return captured;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var captured = statements.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+}
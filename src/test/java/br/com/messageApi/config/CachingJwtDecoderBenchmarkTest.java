@@ -0,0 +1,78 @@
+package br.com.messageApi.config;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Medição no estilo JMH (aquecimento e depois rodadas medidas) do decode com e sem o CachingJwtDecoder, com chave RS256 real:
+// o mesmo conjunto de tokens é decodificado repetidamente, como nas requisições seguidas de um mesmo cliente
+class CachingJwtDecoderBenchmarkTest {
+
+    private static final int TOKENS = 50;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 100;
+
+    @Test
+    void cachedDecodeIsFasterThanSignatureVerification() throws Exception {
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        var keyPair = generator.generateKeyPair();
+
+        var jwk = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).privateKey((RSAPrivateKey) keyPair.getPrivate()).build();
+        var encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
+        JwtDecoder nimbus = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        var cached = new CachingJwtDecoder(nimbus, Duration.ofMinutes(5), Duration.ofSeconds(60), 10_000, new SimpleMeterRegistry());
+
+        var tokens = new ArrayList<String>();
+        for (int i = 0; i < TOKENS; i++) {
+            var claims = JwtClaimsSet.builder()
+                    .issuer("mybackend")
+                    .subject("user-" + i)
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plus(Duration.ofMinutes(15)))
+                    .claim("scope", "basic")
+                    .build();
+            tokens.add(encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue());
+        }
+
+        var uncachedOps = opsPerSecond(nimbus, tokens);
+        var cachedOps = opsPerSecond(cached, tokens);
+
+        System.out.printf("JWT decode RS256: sem cache %.0f ops/s, com cache %.0f ops/s (%.1fx)%n",
+                uncachedOps, cachedOps, cachedOps / uncachedOps);
+
+        // Um acerto custa um SHA-256 e uma consulta ao mapa; a verificação RSA custa dezenas de microssegundos
+        assertThat(cachedOps).isGreaterThan(uncachedOps * 3);
+    }
+
+    private static double opsPerSecond(JwtDecoder decoder, List<String> tokens) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            tokens.forEach(decoder::decode);
+        }
+
+        var start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            tokens.forEach(decoder::decode);
+        }
+        var elapsed = System.nanoTime() - start;
+
+        return (double) MEASURED_ROUNDS * tokens.size() * 1_000_000_000 / elapsed;
+    }
+}
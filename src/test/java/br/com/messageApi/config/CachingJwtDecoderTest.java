@@ -0,0 +1,127 @@
+package br.com.messageApi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private Instant now = Instant.parse("2026-01-01T12:00:00Z");
+    private Instant expiresAt;
+
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        // Decoder delegado que apenas conta as verificações e devolve um token com o exp configurado no teste
+        JwtDecoder delegate = token -> {
+            verifications.incrementAndGet();
+            return Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .subject("user")
+                    .issuedAt(now.minusSeconds(1))
+                    .expiresAt(expiresAt)
+                    .build();
+        };
+
+        decoder = new CachingJwtDecoder(delegate, TTL, CLOCK_SKEW, 100, meterRegistry);
+        decoder.setClock(new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        });
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        expiresAt = now.plus(Duration.ofMinutes(15));
+
+        var first = decoder.decode("token-a");
+        var second = decoder.decode("token-a");
+
+        assertThat(second).isSameAs(first);
+        assertThat(verifications).hasValue(1);
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void differentTokensAreCachedSeparately() {
+        expiresAt = now.plus(Duration.ofMinutes(15));
+
+        decoder.decode("token-a");
+        decoder.decode("token-b");
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void entryExpiresAfterTtl() {
+        expiresAt = now.plus(Duration.ofMinutes(15));
+        decoder.decode("token-a");
+
+        now = now.plus(TTL);
+        decoder.decode("token-a");
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    // Dentro da tolerância de relógio o token continua aceito pelo cache, como seria pelo JwtTimestampValidator
+    @Test
+    void hitWithinClockSkewAfterExpIsAccepted() {
+        expiresAt = now.plus(Duration.ofMinutes(1));
+        decoder.decode("token-a");
+
+        now = expiresAt.plusSeconds(30);
+        decoder.decode("token-a");
+
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void hitPastClockSkewIsRejectedWithoutVerifyingAgain() {
+        expiresAt = now.plus(Duration.ofMinutes(1));
+        decoder.decode("token-a");
+
+        now = expiresAt.plus(CLOCK_SKEW).plusSeconds(1);
+
+        assertThatThrownBy(() -> decoder.decode("token-a"))
+                .isInstanceOf(JwtValidationException.class)
+                .hasMessageContaining("expired");
+        assertThat(verifications).hasValue(1);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("jwt.decoder.cache.requests").tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.messageApi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Com jwt.algorithm=EdDSA o encoder, o decoder e o JWKS publicado usam a mesma chave Ed25519
+@SpringBootTest(properties = "jwt.algorithm=EdDSA")
+@AutoConfigureMockMvc
+class EdDsaTokenTest {
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void encoderAndDecoderAgreeOnConfiguredAlgorithm() throws Exception {
+        var now = Instant.now();
+        var claims = JwtClaimsSet.builder()
+                .subject(UUID.randomUUID().toString())
+                .id(UUID.randomUUID().toString())
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .build();
+
+        var token = jwtEncoder.encode(JwtEncoderParameters.from(claims));
+        var decoded = jwtDecoder.decode(token.getTokenValue());
+
+        assertThat(token.getHeaders()).containsEntry("alg", "EdDSA");
+        assertThat(decoded.getSubject()).isEqualTo(claims.getSubject());
+
+        var jwks = mvc.perform(get("/.well-known/jwks.json")).andReturn().getResponse().getContentAsString();
+        assertThat(jwks).contains("\"kty\":\"OKP\"", "\"crv\":\"Ed25519\"", (String) token.getHeaders().get("kid"))
+                .doesNotContain("\"d\"");
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.messageApi.config;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Medição no estilo JMH (aquecimento e depois rodada medida) de assinatura e verificação por algoritmo de jwt.algorithm,
+// com os mesmos claims do token de acesso emitido pelo /login; imprime ops/s e o tamanho do token serializado
+class JwtSigningKeyBenchmarkTest {
+
+    private static final String[] ALGORITHMS = {"RS256", "ES256", "EdDSA"};
+    private static final int WARMUP = 200;
+    private static final int MEASURED = 1_000;
+
+    private record Result(double signOps, double verifyOps, int tokenLength) {
+    }
+
+    @Test
+    void comparesSignVerifyAndTokenSize() throws Exception {
+        var results = new LinkedHashMap<String, Result>();
+        for (var algorithm : ALGORITHMS) {
+            results.put(algorithm, measure(JwtSigningKey.generate(algorithm)));
+        }
+
+        results.forEach((algorithm, result) -> System.out.printf("%-6s assinatura %8.0f ops/s, verificação %8.0f ops/s, token %d bytes%n",
+                algorithm, result.signOps(), result.verifyOps(), result.tokenLength()));
+
+        var rsa = results.get("RS256");
+        for (var algorithm : new String[]{"ES256", "EdDSA"}) {
+            var curve = results.get(algorithm);
+            // Assinatura de 64 bytes contra 256 do RSA 2048: cerca de 256 caracteres a menos em cada requisição
+            assertThat(curve.tokenLength()).isLessThan(rsa.tokenLength() - 200);
+            // A assinatura RSA (exponenciação com a chave privada) é a operação mais cara do conjunto
+            assertThat(curve.signOps()).isGreaterThan(rsa.signOps());
+        }
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.verifyOps()).isPositive());
+    }
+
+    private static Result measure(JwtSigningKey key) throws Exception {
+        var signer = key.signer();
+        var verifier = key.verifier();
+
+        for (int i = 0; i < WARMUP; i++) {
+            verify(sign(key, signer), verifier);
+        }
+
+        var start = System.nanoTime();
+        String token = null;
+        for (int i = 0; i < MEASURED; i++) {
+            token = sign(key, signer);
+        }
+        var signNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            verify(token, verifier);
+        }
+        var verifyNanos = System.nanoTime() - start;
+
+        return new Result(MEASURED * 1e9 / signNanos, MEASURED * 1e9 / verifyNanos, token.length());
+    }
+
+    private static String sign(JwtSigningKey key, JWSSigner signer) throws Exception {
+        var now = Instant.now();
+        var claims = new JWTClaimsSet.Builder()
+                .issuer("mybackend")
+                .subject(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(Duration.ofMinutes(5))))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("scope", "basic")
+                .build();
+
+        var jwt = new SignedJWT(new JWSHeader.Builder(key.jwsAlgorithm()).keyID(key.keyId()).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    private static void verify(String token, JWSVerifier verifier) throws Exception {
+        assertThat(SignedJWT.parse(token).verify(verifier)).isTrue();
+    }
+}
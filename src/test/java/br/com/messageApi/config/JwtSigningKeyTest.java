@@ -0,0 +1,67 @@
+package br.com.messageApi.config;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtSigningKeyTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"RS256", "ES256", "EdDSA"})
+    void signsAndVerifiesWithEachAlgorithm(String algorithm) throws Exception {
+        var key = JwtSigningKey.generate(algorithm);
+
+        var jwt = sign(key);
+
+        assertThat(key.algorithm().getName()).isEqualTo(algorithm);
+        assertThat(SignedJWT.parse(jwt.serialize()).verify(key.verifier())).isTrue();
+        assertThat(jwt.getHeader().getKeyID()).isEqualTo(key.keyId());
+    }
+
+    // A chave gravada em tb_jwt_keys é relida com o mesmo kid e algoritmo, e a parte publicada não leva a chave privada
+    @ParameterizedTest
+    @ValueSource(strings = {"RS256", "ES256", "EdDSA"})
+    void parsedKeyMatchesGeneratedKey(String algorithm) throws Exception {
+        var key = JwtSigningKey.generate(algorithm);
+
+        var parsed = JwtSigningKey.parse(key.jwk().toJSONString());
+
+        assertThat(parsed.keyId()).isEqualTo(key.keyId());
+        assertThat(parsed.algorithm().getName()).isEqualTo(algorithm);
+        assertThat(key.publicJwk().isPrivate()).isFalse();
+        assertThat(sign(parsed).verify(key.verifier())).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"RS256", "ES256", "EdDSA"})
+    void rejectsTamperedPayloadAndOtherKey(String algorithm) throws Exception {
+        var key = JwtSigningKey.generate(algorithm);
+        var other = JwtSigningKey.generate(algorithm);
+        var jwt = sign(key);
+
+        var parts = jwt.serialize().split("\\.");
+        var tampered = new SignedJWT(new Base64URL(parts[0]), Base64URL.encode("{\"sub\":\"admin\"}"), new Base64URL(parts[2]));
+
+        assertThat(tampered.verify(key.verifier())).isFalse();
+        assertThat(SignedJWT.parse(jwt.serialize()).verify(other.verifier())).isFalse();
+    }
+
+    @Test
+    void rejectsUnsupportedAlgorithm() {
+        assertThatThrownBy(() -> JwtSigningKey.generate("HS256")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SignedJWT sign(JwtSigningKey key) throws Exception {
+        var jwt = new SignedJWT(new JWSHeader.Builder(key.jwsAlgorithm()).keyID(key.keyId()).build(),
+                new JWTClaimsSet.Builder().subject("user").build());
+        jwt.sign(key.signer());
+        return jwt;
+    }
+}
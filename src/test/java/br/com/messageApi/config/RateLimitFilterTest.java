@@ -0,0 +1,73 @@
+package br.com.messageApi.config;
+
+import jakarta.servlet.ReadListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// O corpo de /login lido pelo filtro continua disponível para leitores bloqueantes e não bloqueantes
+class RateLimitFilterTest {
+
+    @Test
+    void smallBodyIsReplayedAndNotifiesReadListener() throws Exception {
+        var json = "{\"username\":\"admin\",\"password\":\"123\"}";
+        var request = new RateLimitFilter.CachedBodyRequest(request(json));
+        var input = request.getInputStream();
+        var events = new ArrayList<String>();
+        var read = new ByteArrayOutputStream();
+
+        assertThat(input.isFinished()).isFalse();
+        assertThat(input.isReady()).isTrue();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                var buffer = new byte[16];
+                while (input.isReady() && !input.isFinished()) {
+                    var n = input.read(buffer);
+                    if (n > 0) {
+                        read.write(buffer, 0, n);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertThat(events).containsExactly("data", "done");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(json);
+        assertThat(input.isFinished()).isTrue();
+        assertThat(input.read()).isEqualTo(-1);
+    }
+
+    @Test
+    void largeBodyContinuesFromOriginalStream() throws Exception {
+        var json = "{\"username\":\"" + "x".repeat(20_000) + "\"}";
+        var request = new RateLimitFilter.CachedBodyRequest(request(json));
+
+        assertThat(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(json);
+        assertThat(request.getInputStream().isFinished()).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        var request = new MockHttpServletRequest("POST", "/login");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
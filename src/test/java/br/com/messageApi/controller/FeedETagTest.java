@@ -0,0 +1,135 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.service.FeedCache;
+import br.com.messageApi.service.MessageService;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FeedETagTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private FeedCache feedCache;
+
+    private JwtAuthenticationToken author;
+
+    @BeforeEach
+    void setUp() {
+        var username = "etag-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        var userId = userCache.findByUsername(username).orElseThrow().userId();
+
+        author = new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userId.toString())
+                .claim("scope", "basic")
+                .build());
+
+        messageService.cadastrarMensagem(new CreateMessagetDto("primeira"), author);
+    }
+
+    @Test
+    void unchangedFeedAnswersNotModifiedWithoutQueries() throws Exception {
+        var first = feed(null);
+        var etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(first.getResponse().getStatus()).isEqualTo(200);
+        assertThat(etag).isNotBlank();
+
+        var result = new MvcResult[1];
+        var statements = SqlStatementCounter.capture(() -> result[0] = feed(etag));
+
+        assertThat(result[0].getResponse().getStatus()).isEqualTo(304);
+        assertThat(result[0].getResponse().getContentAsString()).isEmpty();
+        assertThat(statements).isEmpty();
+    }
+
+    // Sem snapshot no FeedCache o ETag vem de um único select max(message_id): nem a página nem o COUNT(*) são carregados
+    @Test
+    void coldCacheETagDoesNotLoadPage() throws Exception {
+        feedCache.invalidate();
+        var etag = feed(null).getResponse().getHeader(HttpHeaders.ETAG);
+        feedCache.invalidate();
+
+        var result = new MvcResult[1];
+        var statements = SqlStatementCounter.capture(() -> result[0] = feed(etag));
+
+        assertThat(result[0].getResponse().getStatus()).isEqualTo(304);
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).contains("max(").doesNotContain("count(");
+        assertThat(feedCache.peek()).isNull();
+    }
+
+    @Test
+    void deletedMessageChangesETag() throws Exception {
+        var batch = messageService.cadastrarMensagens(List.of(new CreateMessagetDto("removida")), author);
+        var etag = feed(null).getResponse().getHeader(HttpHeaders.ETAG);
+
+        messageService.removerMensagem(batch.results().get(0).messageId(), author);
+
+        var after = feed(etag);
+        assertThat(after.getResponse().getStatus()).isEqualTo(200);
+        assertThat(after.getResponse().getContentAsString()).doesNotContain("removida");
+    }
+
+    @Test
+    void newMessageChangesETag() throws Exception {
+        var etag = feed(null).getResponse().getHeader(HttpHeaders.ETAG);
+
+        messageService.cadastrarMensagem(new CreateMessagetDto("segunda"), author);
+
+        var after = feed(etag);
+        assertThat(after.getResponse().getStatus()).isEqualTo(200);
+        assertThat(after.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(after.getResponse().getContentAsString()).contains("segunda");
+    }
+
+    @Test
+    void pageParametersArePartOfETag() throws Exception {
+        var etag = feed(null).getResponse().getHeader(HttpHeaders.ETAG);
+
+        var otherPage = mvc.perform(get("/feed").param("pageSize", "5").header(HttpHeaders.IF_NONE_MATCH, etag).with(jwt()))
+                .andReturn();
+
+        assertThat(otherPage.getResponse().getStatus()).isEqualTo(200);
+    }
+
+    private MvcResult feed(String ifNoneMatch) throws Exception {
+        var request = get("/feed").with(jwt());
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mvc.perform(request).andReturn();
+    }
+}
@@ -0,0 +1,118 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Vazão de POST /messages (uma mensagem por requisição e por transação) contra POST /messages/batch (BATCH_SIZE mensagens
+// por requisição, gravadas em JDBC batches) com o mesmo conteúdo, cada caminho com o seu autor
+@SpringBootTest
+@AutoConfigureMockMvc
+class MessageBatchThroughputTest {
+
+    private static final int MESSAGES = 500;
+    private static final int BATCH_SIZE = 100;
+    private static final int WARMUP = 100;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchOutpacesSingleRequests() throws Exception {
+        var contents = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < MESSAGES; i++) {
+            contents.add(new CreateMessagetDto("vazão " + i));
+        }
+
+        var single = author();
+        var batch = author();
+
+        postSingle(single, contents.subList(0, WARMUP));
+        postBatches(batch, contents.subList(0, WARMUP));
+
+        var start = System.nanoTime();
+        postSingle(single, contents);
+        var singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        postBatches(batch, contents);
+        var batchNanos = System.nanoTime() - start;
+
+        var singleRate = MESSAGES * 1e9 / singleNanos;
+        var batchRate = MESSAGES * 1e9 / batchNanos;
+        System.out.printf("POST /messages: %.0f mensagens/s; POST /messages/batch (%d por lote): %.0f mensagens/s (%.1fx)%n",
+                singleRate, BATCH_SIZE, batchRate, batchRate / singleRate);
+
+        assertThat(messages(single)).isEqualTo(WARMUP + MESSAGES);
+        assertThat(messages(batch)).isEqualTo(WARMUP + MESSAGES);
+        assertThat(batchRate).isGreaterThan(singleRate * 2);
+    }
+
+    private void postSingle(Jwt author, List<CreateMessagetDto> dtos) throws Exception {
+        for (var dto : dtos) {
+            mvc.perform(post("/messages")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsBytes(dto))
+                            .with(jwt().jwt(author)))
+                    .andExpect(status().is2xxSuccessful());
+        }
+    }
+
+    private void postBatches(Jwt author, List<CreateMessagetDto> dtos) throws Exception {
+        for (int from = 0; from < dtos.size(); from += BATCH_SIZE) {
+            mvc.perform(post("/messages/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsBytes(dtos.subList(from, Math.min(from + BATCH_SIZE, dtos.size()))))
+                            .with(jwt().jwt(author)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private long messages(Jwt author) {
+        var id = UUID.fromString(author.getSubject());
+        var bytes = ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+        return jdbcTemplate.queryForObject("select count(*) from tb_messages where user_id = ?", Long.class, (Object) bytes);
+    }
+
+    private Jwt author() {
+        var username = "vazao-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+
+        return Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userCache.findByUsername(username).orElseThrow().userId().toString())
+                .claim("scope", "basic")
+                .build();
+    }
+}
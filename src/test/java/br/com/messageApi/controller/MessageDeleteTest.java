@@ -0,0 +1,103 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.service.MessageService;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// DELETE /messages?ids=...: separa removidas e não removidas e recusa listas acima de messages.delete.max-ids
+@SpringBootTest(properties = "messages.delete.max-ids=10")
+@AutoConfigureMockMvc
+class MessageDeleteTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    void deletesOwnMessagesAndReportsTheRest() throws Exception {
+        var owner = token();
+        var other = token();
+        var own = messageId(new CreateMessagetDto("minha"), owner);
+        var foreign = messageId(new CreateMessagetDto("de outro"), other);
+
+        mvc.perform(delete("/messages")
+                        .param("ids", own + "," + own + "," + foreign + ",-1")
+                        .with(jwt().jwt(owner.getToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted.length()").value(1))
+                .andExpect(jsonPath("$.deleted[0]").value(own))
+                .andExpect(jsonPath("$.notDeleted.length()").value(2));
+    }
+
+    // Um SELECT ... FOR UPDATE para saber quais ids são removidos e um único UPDATE em lote; repetir a remoção não reporta nada
+    @Test
+    void locksAuthorizedRowsAndUpdatesInOneStatement() throws Exception {
+        var owner = token();
+        var ids = List.of(messageId(new CreateMessagetDto("a"), owner), messageId(new CreateMessagetDto("b"), owner));
+
+        var statements = SqlStatementCounter.capture(() -> {
+            var response = messageService.removerMensagens(ids, owner);
+            assertThat(response.deleted()).containsExactlyInAnyOrderElementsOf(ids);
+        });
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0)).startsWithIgnoringCase("select").containsIgnoringCase("for update");
+        assertThat(statements.get(1)).startsWithIgnoringCase("update");
+
+        var again = messageService.removerMensagens(ids, owner);
+        assertThat(again.deleted()).isEmpty();
+        assertThat(again.notDeleted()).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void rejectsTooManyIds() throws Exception {
+        var ids = LongStream.rangeClosed(1, 11).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        mvc.perform(delete("/messages").param("ids", ids).with(jwt().jwt(token().getToken())))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long messageId(CreateMessagetDto dto, JwtAuthenticationToken token) {
+        return messageService.cadastrarMensagens(List.of(dto), token).results().get(0).messageId();
+    }
+
+    private JwtAuthenticationToken token() {
+        var username = "delete-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        var userId = userCache.findByUsername(username).orElseThrow().userId();
+
+        return new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userId.toString())
+                .claim("scope", "basic")
+                .build());
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.config.OtpTokens;
+import br.com.messageApi.service.OTPService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Vazão de POST /validate com THREADS clientes simultâneos: código errado (só a verificação do token),
+// código certo (verificação e insert do jti em tb_used_otps) e reapresentação (insert recusado pela chave primária)
+@SpringBootTest(properties = "rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class OtpValidateThroughputTest {
+
+    private static final int THREADS = 8;
+    private static final int TOKENS = 400;
+    private static final String OTP = "123456";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private OtpTokens otpTokens;
+
+    @Autowired
+    private OTPService otpService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void validateThroughput() throws Exception {
+        var tokens = new ArrayList<String>();
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(otpTokens.createToken("vazao-" + i + "@example.com", OTP));
+        }
+
+        // Aquecimento: a primeira rodada inclui a compilação JIT do caminho da requisição
+        run("aquecimento", tokens, "000000");
+        var wrong = run("código errado", tokens, "000000");
+        var accepted = run("código certo", tokens, OTP);
+        var replayed = run("reapresentação", tokens, OTP);
+
+        assertThat(wrong.valid()).isZero();
+        assertThat(accepted.valid()).isEqualTo(TOKENS);
+        assertThat(replayed.valid()).isZero();
+        assertThat(replayed.alreadyUsed()).isEqualTo(TOKENS);
+    }
+
+    // O mesmo caminho sem o MockMvc: mede só o OTPService (parser pré-construído e insert do jti), que no endpoint
+    // fica encoberto pelo custo da cadeia de filtros simulada
+    @Test
+    void serviceThroughput() {
+        var tokens = new ArrayList<String>();
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(otpTokens.createToken("servico-" + i + "@example.com", OTP));
+        }
+
+        for (int round = 0; round < 5; round++) {
+            tokens.forEach(token -> otpService.validateOtp(token, "000000"));
+        }
+
+        var start = System.nanoTime();
+        for (int round = 0; round < 10; round++) {
+            tokens.forEach(token -> assertThat(otpService.validateOtp(token, "000000")).containsEntry("valid", false));
+        }
+        var wrongNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        tokens.forEach(token -> assertThat(otpService.validateOtp(token, OTP)).containsEntry("valid", true));
+        var acceptedNanos = System.nanoTime() - start;
+
+        System.out.printf("OTPService.validateOtp: código errado %.0f ops/s, código certo (com insert) %.0f ops/s%n",
+                10 * TOKENS * 1e9 / wrongNanos, TOKENS * 1e9 / acceptedNanos);
+    }
+
+    // Todos os clientes apresentam o mesmo token ao mesmo tempo: só um é aceito
+    @Test
+    void concurrentPresentationsAcceptOnce() throws Exception {
+        var token = otpTokens.createToken("corrida@example.com", OTP);
+
+        var result = run("mesmo token", List.of(token, token, token, token, token, token, token, token), OTP);
+
+        assertThat(result.valid()).isEqualTo(1);
+        assertThat(result.alreadyUsed()).isEqualTo(7);
+    }
+
+    private record Result(int valid, int alreadyUsed) {
+    }
+
+    private Result run(String label, List<String> tokens, String otp) throws Exception {
+        var valid = new AtomicInteger();
+        var alreadyUsed = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            var tasks = new ArrayList<Callable<Void>>();
+            for (var token : tokens) {
+                tasks.add(() -> {
+                    var body = mvc.perform(post("/validate").param("token", token).param("userEnteredOtp", otp))
+                            .andExpect(status().isOk())
+                            .andReturn().getResponse().getContentAsString();
+                    var response = objectMapper.readValue(body, Map.class);
+                    if (Boolean.TRUE.equals(response.get("valid"))) {
+                        valid.incrementAndGet();
+                    }
+                    if ("Token already used".equals(response.get("error"))) {
+                        alreadyUsed.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+
+            var start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            var elapsed = System.nanoTime() - start;
+
+            System.out.printf("POST /validate (%s): %d requisições, %d threads, %.0f req/s%n",
+                    label, tokens.size(), THREADS, tokens.size() * 1e9 / elapsed);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new Result(valid.get(), alreadyUsed.get());
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.dto.LoginResponse;
+import br.com.messageApi.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Simula USERS sessões: um login (BCrypt) seguido de REFRESHES renovações por refresh token (sem BCrypt)
+// auth.tokens.issued separa as emissões por grant e password.hash.time conta só as verificações de senha dos logins
+@SpringBootTest(properties = "rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class TokenGrantTest {
+
+    private static final int USERS = 5;
+    private static final int REFRESHES = 4;
+    private static final String PASSWORD = "senha-sessao";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void refreshCyclesSkipBcrypt() throws Exception {
+        // Um único hash para todos os usuários: o custo do BCrypt no cadastro não entra na simulação
+        var passwordHash = bCryptPasswordEncoder.encode(PASSWORD);
+        var usernames = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            usernames[i] = "sessao-" + UUID.randomUUID();
+            userService.cadastrarUsuario(usernames[i], passwordHash);
+        }
+
+        var passwordGrants = issued("password");
+        var refreshGrants = issued("refresh_token");
+        var bcryptMatches = bcryptMatches();
+
+        for (var username : usernames) {
+            var tokens = call(post("/login"), """
+                    {"username": "%s", "password": "%s"}
+                    """.formatted(username, PASSWORD));
+
+            for (int r = 0; r < REFRESHES; r++) {
+                var refreshed = call(post("/token/refresh"), """
+                        {"refreshToken": "%s"}
+                        """.formatted(tokens.refreshToken()));
+                assertThat(refreshed.refreshToken()).isNotEqualTo(tokens.refreshToken());
+                tokens = refreshed;
+            }
+        }
+
+        assertThat(issued("password") - passwordGrants).isEqualTo(USERS);
+        assertThat(issued("refresh_token") - refreshGrants).isEqualTo(USERS * REFRESHES);
+        // Uma verificação de senha por sessão em vez de uma por emissão: USERS * REFRESHES chamadas ao BCrypt evitadas
+        assertThat(bcryptMatches() - bcryptMatches).isEqualTo(USERS);
+    }
+
+    private LoginResponse call(MockHttpServletRequestBuilder request, String body) throws Exception {
+        var result = mvc.perform(request.contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), LoginResponse.class);
+    }
+
+    private double issued(String grant) {
+        return meterRegistry.get("auth.tokens.issued").tag("grant", grant).counter().count();
+    }
+
+    private long bcryptMatches() {
+        return meterRegistry.get("password.hash.time").tag("operation", "matches").timer().count();
+    }
+}
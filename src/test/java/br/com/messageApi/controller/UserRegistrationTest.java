@@ -0,0 +1,59 @@
+package br.com.messageApi.controller;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Cadastro (POST /users): a role BASIC vem do RoleRegistry e a unicidade do username fica com o índice único,
+// então o cadastro só grava (tb_users e tb_users_roles), sem nenhum SELECT, e o username repetido vira 422
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserRegistrationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    void registrationIssuesNoSelects() throws Exception {
+        var username = "registro-" + UUID.randomUUID();
+
+        var statements = SqlStatementCounter.capture(() -> userService.cadastrarUsuario(username, "hash"));
+
+        assertThat(statements).noneMatch(sql -> sql.trim().toLowerCase().startsWith("select"));
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0)).startsWithIgnoringCase("insert into tb_users ");
+        assertThat(statements.get(1)).startsWithIgnoringCase("insert into tb_users_roles");
+        assertThat(userCache.findByUsername(username)).isPresent();
+    }
+
+    @Test
+    void duplicateUsernameIsUnprocessable() throws Exception {
+        var body = """
+                {"username": "duplicado-%s", "password": "123"}
+                """.formatted(UUID.randomUUID());
+
+        mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isUnprocessableEntity());
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.dto.FeedCursor;
+import br.com.messageApi.dto.FeedDto;
+import br.com.messageApi.service.MessageService;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Páginas do feed fora da janela do FeedCache vão ao banco: cada uma deve ser um único SELECT de projeção,
+// sem um SELECT por autor (N+1) e sem o join com tb_roles
+@SpringBootTest
+class FeedProjectionTest {
+
+    private static final int AUTHORS = 5;
+    private static final int MESSAGES_PER_AUTHOR = 30;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        for (int a = 0; a < AUTHORS; a++) {
+            var username = "feed-" + UUID.randomUUID();
+            userService.cadastrarUsuario(username, "hash");
+            var token = new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                    .header("alg", "none")
+                    .subject(userCache.findByUsername(username).orElseThrow().userId().toString())
+                    .build());
+
+            var dtos = new ArrayList<CreateMessagetDto>();
+            for (int i = 0; i < MESSAGES_PER_AUTHOR; i++) {
+                dtos.add(new CreateMessagetDto(username + " " + i));
+            }
+            messageService.cadastrarMensagens(dtos, token);
+        }
+    }
+
+    @Test
+    void pageWithoutTotalsIsOneStatement() throws Exception {
+        var page = new FeedDto[1];
+
+        var statements = SqlStatementCounter.capture(() -> page[0] = messageService.listarTodasMensagens(5, 10, false));
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).doesNotContainIgnoringCase("tb_roles");
+        assertThat(page[0].feedItens()).hasSize(10)
+                .allSatisfy(item -> assertThat(item.username()).startsWith("feed-"));
+    }
+
+    @Test
+    void pageWithTotalsAddsOnlyTheCount() throws Exception {
+        var statements = SqlStatementCounter.capture(() -> messageService.listarTodasMensagens(5, 10, true));
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements).noneMatch(sql -> sql.toLowerCase().contains("tb_roles"));
+    }
+
+    @Test
+    void cursorPageIsOneStatement() throws Exception {
+        var first = messageService.listarMensagensPorCursor(null, 40);
+
+        var statements = SqlStatementCounter.capture(() ->
+                messageService.listarMensagensPorCursor(FeedCursor.decode(first.nextCursor()), 40));
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).doesNotContainIgnoringCase("tb_roles");
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.dto.FeedCursor;
+import br.com.messageApi.dto.FeedDto;
+import br.com.messageApi.dto.FeedItemDto;
+import br.com.messageApi.service.MessageService;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TimelineTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pagesThroughOneAuthorOnly() throws Exception {
+        var author = createUser(55);
+        createUser(10);
+
+        var pages = 0;
+        var items = new ArrayList<FeedItemDto>();
+        FeedCursor cursor = null;
+
+        do {
+            var current = cursor;
+            var page = new FeedDto[1];
+            var statements = SqlStatementCounter.capture(() ->
+                    page[0] = messageService.listarMensagensDoUsuario(author.userId(), current, 20));
+
+            // Uma consulta por página, independentemente da posição na timeline
+            assertThat(statements).hasSize(1);
+            items.addAll(page[0].feedItens());
+            cursor = page[0].nextCursor() == null ? null : FeedCursor.decode(page[0].nextCursor());
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(items).hasSize(55)
+                .allSatisfy(item -> assertThat(item.username()).isEqualTo(author.username()))
+                .isSortedAccordingTo(Comparator.comparing(FeedItemDto::creationTimestamp)
+                        .thenComparing(FeedItemDto::messageId)
+                        .reversed());
+        assertThat(items).extracting(FeedItemDto::messageId).doesNotHaveDuplicates();
+    }
+
+    // Com o índice (user_id, creation_timestamp, message_id) uma página custa o mesmo para um autor com 100 ou 10.000 mensagens,
+    // tanto no início da timeline quanto no meio dela (cursor keyset, sem OFFSET)
+    @Test
+    void pageLatencyIsFlatAcrossAuthorSizes() {
+        var sizes = new int[]{100, 1_000, 10_000};
+        var latencies = new long[sizes.length];
+
+        for (int s = 0; s < sizes.length; s++) {
+            var author = createUser(sizes[s]);
+            var middle = FeedCursor.decode(messageService.listarMensagensDoUsuario(author.userId(), null, sizes[s] / 2).nextCursor());
+
+            latencies[s] = Math.max(medianNanos(() -> messageService.listarMensagensDoUsuario(author.userId(), null, 20)),
+                    medianNanos(() -> messageService.listarMensagensDoUsuario(author.userId(), middle, 20)));
+
+            System.out.printf("Timeline de %d mensagens: página de 20 em %.2f ms (mediana)%n", sizes[s], latencies[s] / 1e6);
+        }
+
+        // 100 vezes mais mensagens sem crescer junto: a folga cobre a variação do ambiente de teste
+        assertThat(latencies[2]).isLessThan(latencies[0] * 3 + 2_000_000);
+    }
+
+    @Test
+    void timelineQueryUsesAuthorIndex() {
+        var author = createUser(3);
+
+        var columns = jdbcTemplate.queryForList("""
+                select column_name from information_schema.index_columns
+                where lower(index_name) = 'idx_messages_user_creation' order by ordinal_position
+                """, String.class);
+        assertThat(columns).extracting(String::toLowerCase).containsExactly("user_id", "creation_timestamp", "message_id");
+
+        var plan = jdbcTemplate.queryForObject("""
+                explain select message_id from tb_messages where user_id = ?
+                order by creation_timestamp desc, message_id desc limit 10
+                """, String.class, (Object) uuidBytes(author.userId()));
+        assertThat(plan).containsIgnoringCase("idx_messages_user_creation");
+    }
+
+    private Author createUser(int messages) {
+        var username = "timeline-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        var userId = userCache.findByUsername(username).orElseThrow().userId();
+
+        var token = new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userId.toString())
+                .build());
+
+        var dtos = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < messages; i++) {
+            dtos.add(new CreateMessagetDto(username + " " + i));
+        }
+        messageService.cadastrarMensagens(dtos, token);
+
+        return new Author(userId, username);
+    }
+
+    private static long medianNanos(Runnable page) {
+        for (int i = 0; i < 50; i++) {
+            page.run();
+        }
+
+        var samples = new long[101];
+        for (int i = 0; i < samples.length; i++) {
+            var start = System.nanoTime();
+            page.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private record Author(UUID userId, String username) {
+    }
+}
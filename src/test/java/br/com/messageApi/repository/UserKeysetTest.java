@@ -0,0 +1,136 @@
+package br.com.messageApi.repository;
+
+import br.com.messageApi.dto.UserCursor;
+import br.com.messageApi.dto.UserSummaryDto;
+import br.com.messageApi.entities.Role;
+import br.com.messageApi.service.UserCache;
+import br.com.messageApi.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Listagem e exportação de usuários por keyset (username): as páginas não se sobrepõem nem pulam usuários,
+// as roles chegam agregadas pelo listagg e a exportação atravessa mais de um bloco de EXPORT_CHUNK_SIZE (1000)
+@SpringBootTest
+class UserKeysetTest {
+
+    private static final int USERS = 1_250;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void pagesNeitherOverlapNorSkip() {
+        var prefix = "keyset-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        var created = insertUsers(prefix, 95);
+
+        var seen = new ArrayList<String>();
+        UserCursor cursor = null;
+        String last = null;
+        do {
+            var page = userService.listarUsuarios(cursor, 10);
+            assertThat(page.users()).hasSizeLessThanOrEqualTo(10);
+
+            for (var user : page.users()) {
+                // Ordem estritamente crescente: nenhum username se repete entre páginas
+                if (last != null) {
+                    assertThat(user.username().compareToIgnoreCase(last)).isPositive();
+                }
+                last = user.username();
+                if (user.username().startsWith(prefix)) {
+                    seen.add(user.username());
+                }
+            }
+            cursor = page.nextCursor() == null ? null : UserCursor.decode(page.nextCursor());
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(created);
+    }
+
+    @Test
+    void aggregatesRoleNames() {
+        var username = "keyset-roles-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        var userId = userCache.findByUsername(username).orElseThrow().userId();
+        userService.alterarRoles(userId, Set.of(Role.Values.BASIC, Role.Values.ADMIN));
+
+        var page = userService.listarUsuarios(new UserCursor(username.substring(0, username.length() - 1)), 1);
+
+        assertThat(page.users()).singleElement().satisfies(user -> {
+            assertThat(user.userId()).isEqualTo(userId);
+            assertThat(user.username()).isEqualTo(username);
+            assertThat(user.roles()).containsExactly("admin", "basic");
+        });
+    }
+
+    @Test
+    void exportCrossesChunkBoundary() throws Exception {
+        var prefix = "export-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        var created = insertUsers(prefix, USERS);
+
+        var out = new ByteArrayOutputStream();
+        var count = userService.exportarUsuarios(out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(lines.size()).isGreaterThan(1_000);
+
+        var usernames = new HashSet<String>();
+        var exported = new ArrayList<String>();
+        for (var line : lines) {
+            var user = objectMapper.readValue(line, UserSummaryDto.class);
+            assertThat(usernames.add(user.username())).isTrue();
+            if (user.username().startsWith(prefix)) {
+                exported.add(user.username());
+                assertThat(user.roles()).containsExactly("basic");
+            }
+        }
+        assertThat(exported).containsExactlyElementsOf(created);
+    }
+
+    // Insere os usuários direto por JDBC (já com a role BASIC) para não pagar um cadastro por usuário
+    private List<String> insertUsers(String prefix, int count) {
+        var basic = jdbcTemplate.queryForObject("select role_id from tb_roles where name = ?", Long.class,
+                Role.Values.BASIC.name().toLowerCase());
+
+        var usernames = new ArrayList<String>();
+        var users = new ArrayList<Object[]>();
+        var roles = new ArrayList<Object[]>();
+        for (int i = 0; i < count; i++) {
+            var username = prefix + String.format("%05d", i);
+            var id = uuidBytes(UUID.randomUUID());
+            usernames.add(username);
+            users.add(new Object[]{id, username, "hash"});
+            roles.add(new Object[]{id, basic});
+        }
+
+        jdbcTemplate.batchUpdate("insert into tb_users (user_id, username, password) values (?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("insert into tb_users_roles (user_id, role_id) values (?, ?)", roles);
+        return usernames;
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
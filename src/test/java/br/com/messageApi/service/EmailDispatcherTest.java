@@ -0,0 +1,163 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.entities.EmailOutbox;
+import br.com.messageApi.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fila de e-mails (tb_email_outbox) contra um servidor SMTP em processo que recusa a primeira mensagem com 451:
+// a mensagem recusada volta para a fila e é reenviada, as demais do lote usam a mesma conexão e as enviadas saem da tabela
+@SpringBootTest(properties = {
+        "email.outbox.initial-backoff=200ms",
+        "email.outbox.poll-interval=200ms"
+})
+class EmailDispatcherTest {
+
+    private static final FakeSmtpServer SMTP = new FakeSmtpServer();
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.port", SMTP::port);
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        SMTP.close();
+    }
+
+    @Test
+    void retriesTemporaryFailureAndDeletesSentRows() throws Exception {
+        var recipients = List.of("a@example.com", "b@example.com", "c@example.com");
+        for (var recipient : recipients) {
+            emailOutboxService.enqueue(recipient, "Código", "<p>123456</p>");
+        }
+
+        await(() -> SMTP.delivered.size() == recipients.size() && pending(recipients).isEmpty());
+
+        assertThat(SMTP.delivered).containsExactlyInAnyOrderElementsOf(recipients);
+        // A primeira tentativa foi recusada e repetida
+        assertThat(SMTP.dataCommands.get()).isEqualTo(recipients.size() + 1);
+        // Um lote não abre uma conexão por e-mail
+        assertThat(SMTP.connections.get()).isLessThan(SMTP.dataCommands.get());
+    }
+
+    private List<EmailOutbox> pending(List<String> recipients) {
+        return emailOutboxRepository.findAll().stream()
+                .filter(email -> recipients.contains(email.getRecipient()))
+                .toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condição não atingida a tempo").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    // Servidor SMTP mínimo: aceita tudo, responde 451 ao primeiro DATA e guarda o destinatário dos demais
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger dataCommands = new AtomicInteger();
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+        FakeSmtpServer() {
+            try {
+                serverSocket = new ServerSocket(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Thread.ofPlatform().daemon().name("fake-smtp").start(this::accept);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    var socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread.ofPlatform().daemon().start(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 var out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 fake");
+                String recipient = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    var command = line.toUpperCase(Locale.ROOT);
+                    if (command.startsWith("RCPT TO:")) {
+                        recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        reply(out, "250 ok");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 go ahead");
+                        while (!".".equals(in.readLine())) {
+                            // corpo da mensagem
+                        }
+                        if (dataCommands.incrementAndGet() == 1) {
+                            reply(out, "451 try again later");
+                        } else {
+                            delivered.add(recipient);
+                            reply(out, "250 ok");
+                        }
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 bye");
+                        return;
+                    } else {
+                        reply(out, "250 ok");
+                    }
+                }
+            } catch (IOException e) {
+                // conexão encerrada pelo cliente
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.FeedItemDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "feed.stream.buffer-size=16")
+@AutoConfigureMockMvc
+class FeedBroadcasterTest {
+
+    private static final int SUBSCRIBERS = 5_000;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private FeedBroadcaster feedBroadcaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void deliversEventsToThousandsOfSubscribers() throws Exception {
+        var baseline = subscribers();
+        var streams = new ArrayList<MvcResult>(SUBSCRIBERS);
+
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            streams.add(mvc.perform(get("/feed/stream").with(jwt())).andReturn());
+        }
+        assertThat(subscribers()).isEqualTo(baseline + SUBSCRIBERS);
+
+        feedBroadcaster.publishCreated(new FeedItemDto(1, "olá", "autor", Instant.now()));
+        feedBroadcaster.publishDeleted(1);
+
+        await(() -> streams.stream().allMatch(stream -> content(stream).contains("event:delete")));
+
+        for (var stream : streams) {
+            var content = content(stream);
+            assertThat(content).contains("event:message", "\"content\":\"olá\"", "data:{\"messageId\":1}");
+            assertThat(content.indexOf("event:message")).isLessThan(content.indexOf("event:delete"));
+        }
+    }
+
+    // Um cliente que para de ler enche o buffer da conexão e depois o buffer do assinante: é desconectado,
+    // e quem publica não espera por ele
+    @Test
+    void dropsSlowSubscriberWithoutBlockingPublisher() throws Exception {
+        var dropped = meterRegistry.get("feed.stream.dropped").functionCounter().count();
+        var baseline = subscribers();
+
+        try (var socket = new Socket("localhost", port)) {
+            socket.setReceiveBufferSize(4096);
+            var request = "GET /feed/stream HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n"
+                    + "Authorization: Bearer " + accessToken() + "\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            await(() -> subscribers() == baseline + 1);
+
+            var content = "x".repeat(255);
+            var start = System.nanoTime();
+            for (int i = 0; i < 50_000; i++) {
+                feedBroadcaster.publishCreated(new FeedItemDto(i, content, "autor", Instant.now()));
+            }
+            var publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            await(() -> subscribers() == baseline);
+            assertThat(meterRegistry.get("feed.stream.dropped").functionCounter().count()).isGreaterThan(dropped);
+            assertThat(publishMillis).isLessThan(5_000);
+        }
+    }
+
+    private String accessToken() throws Exception {
+        var login = mvc.perform(post("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"admin\",\"password\":\"123\"}"))
+                .andReturn();
+        return objectMapper.readTree(login.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private double subscribers() {
+        return meterRegistry.get("feed.stream.subscribers").gauge().value();
+    }
+
+    private static String content(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condição não atingida a tempo").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
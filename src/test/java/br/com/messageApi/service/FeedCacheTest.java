@@ -0,0 +1,161 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.FeedItemDto;
+import br.com.messageApi.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedCacheTest {
+
+    private static final int SIZE = 30;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Tabela simulada: messageId -> item, lida pela "consulta" do repositório
+    private final ConcurrentSkipListMap<Long, FeedItemDto> table = new ConcurrentSkipListMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @Test
+    void writeDuringLoadIsAppliedAndSnapshotIsInstalled() {
+        var cache = new FeedCache(messageRepository, meterRegistry, SIZE, Duration.ofMinutes(1));
+        insert();
+        insert();
+
+        // A mensagem é confirmada depois que a consulta leu a tabela, antes da carga terminar
+        var late = item(ids.incrementAndGet());
+        when(messageRepository.findFeedFirst(any(Pageable.class))).thenAnswer(invocation -> {
+            var page = newest();
+            table.put(late.messageId(), late);
+            cache.add(late);
+            return page;
+        });
+        when(messageRepository.count()).thenAnswer(invocation -> (long) table.size() - 1);
+
+        var loaded = cache.get();
+        var cached = cache.get();
+
+        assertThat(loaded.items()).first().isEqualTo(late);
+        assertThat(loaded.totalElements()).isEqualTo(3);
+        assertThat(cached).isSameAs(loaded);
+        verify(messageRepository, times(1)).findFeedFirst(any(Pageable.class));
+    }
+
+    @Test
+    void removalInsideWindowDuringLoadIsNotCached() {
+        var cache = new FeedCache(messageRepository, meterRegistry, SIZE, Duration.ofMinutes(1));
+        var first = insert();
+        insert();
+
+        when(messageRepository.findFeedFirst(any(Pageable.class))).thenAnswer(invocation -> {
+            var page = newest();
+            table.remove(first.messageId());
+            cache.remove(first.messageId());
+            return page;
+        });
+        when(messageRepository.count()).thenAnswer(invocation -> (long) table.size());
+
+        var loaded = cache.get();
+        cache.get();
+
+        assertThat(loaded.items()).extracting(FeedItemDto::messageId).doesNotContain(first.messageId());
+        verify(messageRepository, times(2)).findFeedFirst(any(Pageable.class));
+    }
+
+    // Sob escrita contínua (cada carga cruza com várias escritas) o cache continua sendo preenchido e atendendo as leituras
+    @Test
+    void keepsHighHitRateUnderConcurrentWrites() throws Exception {
+        var cache = new FeedCache(messageRepository, meterRegistry, SIZE, Duration.ofMillis(50));
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < SIZE; i++) {
+            insert();
+        }
+
+        when(messageRepository.findFeedFirst(any(Pageable.class))).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            var page = newest();
+            Thread.sleep(5);
+            return page;
+        });
+        when(messageRepository.count()).thenAnswer(invocation -> (long) table.size());
+
+        var running = new AtomicBoolean(true);
+        var readers = 8;
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(readers + 1);
+
+        try {
+            executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    cache.add(insert());
+                    Thread.sleep(1);
+                }
+                return null;
+            });
+
+            for (int i = 0; i < readers; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    while (running.get()) {
+                        assertThat(cache.get().items()).hasSize(SIZE);
+                    }
+                    return null;
+                });
+            }
+
+            start.countDown();
+            Thread.sleep(1_000);
+            running.set(false);
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        var hits = meterRegistry.get("feed.cache.requests").tag("result", "hit").functionCounter().count();
+        var misses = meterRegistry.get("feed.cache.requests").tag("result", "miss").functionCounter().count();
+
+        assertThat(hits / (hits + misses)).isGreaterThan(0.95);
+        // Uma carga por TTL (mais as de partida), não uma por leitura
+        assertThat(loads.get()).isLessThan(100);
+
+        // O snapshot final reflete as escritas feitas durante as cargas
+        var snapshot = cache.get();
+        assertThat(snapshot.items()).extracting(FeedItemDto::messageId).isEqualTo(newest().stream().map(FeedItemDto::messageId).toList());
+    }
+
+    private FeedItemDto insert() {
+        var item = item(ids.incrementAndGet());
+        table.put(item.messageId(), item);
+        return item;
+    }
+
+    private List<FeedItemDto> newest() {
+        return new ArrayList<>(table.descendingMap().values()).subList(0, Math.min(SIZE, table.size()));
+    }
+
+    private static FeedItemDto item(long messageId) {
+        return new FeedItemDto(messageId, "mensagem " + messageId, "autor", Instant.now());
+    }
+}
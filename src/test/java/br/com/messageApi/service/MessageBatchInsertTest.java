@@ -0,0 +1,68 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.dto.BatchMessagesResponse;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.entities.Message;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// POST /messages/batch: as mensagens válidas são inseridas em JDBC batches de hibernate.jdbc.batch_size
+// e os ids vêm em blocos da sequência pooled, então o número de comandos não cresce com o número de mensagens
+@SpringBootTest
+class MessageBatchInsertTest {
+
+    private static final int MESSAGES = 120;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    void insertsInJdbcBatches() throws Exception {
+        var token = author();
+        var dtos = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < MESSAGES; i++) {
+            dtos.add(new CreateMessagetDto(i == 7 ? " " : "lote " + i));
+        }
+
+        var response = new BatchMessagesResponse[1];
+        var statements = SqlStatementCounter.capture(() -> response[0] = messageService.cadastrarMensagens(dtos, token));
+
+        var inserts = statements.stream().filter(sql -> sql.startsWith("insert into tb_messages")).count();
+        var sequenceCalls = statements.stream().filter(sql -> sql.contains("tb_messages_seq")).count();
+        var batches = (MESSAGES - 1 + Message.ID_ALLOCATION_SIZE - 1) / Message.ID_ALLOCATION_SIZE;
+
+        // Um comando preparado por batch, não um por mensagem
+        assertThat(inserts).isEqualTo(batches);
+        assertThat(sequenceCalls).isLessThanOrEqualTo(batches + 1);
+
+        assertThat(response[0].inserted()).isEqualTo(MESSAGES - 1);
+        assertThat(response[0].rejected()).isEqualTo(1);
+        assertThat(response[0].results().get(7).error()).isEqualTo("O campo 'content' é obrigatório");
+        assertThat(response[0].results().get(8).messageId()).isNotNull();
+    }
+
+    private JwtAuthenticationToken author() {
+        var username = "batch-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+
+        return new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userCache.findByUsername(username).orElseThrow().userId().toString())
+                .build());
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.CreateMessagetDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Exportação NDJSON lida em streaming (fetch size só em streamAllSince), uma linha por mensagem em ordem cronológica
+@SpringBootTest
+class MessageExportTest {
+
+    private static final int MESSAGES = 30;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportsMessagesCreatedSince() throws Exception {
+        var since = Instant.now();
+        var userId = author();
+        var dtos = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < MESSAGES; i++) {
+            dtos.add(new CreateMessagetDto("exportada " + i));
+        }
+        messageService.cadastrarMensagens(dtos, token(userId));
+
+        var out = new ByteArrayOutputStream();
+        var count = messageService.exportarMensagens(since, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        var own = lines.stream()
+                .map(line -> {
+                    try {
+                        return objectMapper.readTree(line);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .filter(node -> node.get("userId").asText().equals(userId.toString()))
+                .toList();
+
+        assertThat(count).isEqualTo(lines.size());
+        assertThat(own).hasSize(MESSAGES);
+        assertThat(own.get(0).get("content").asText()).isEqualTo("exportada 0");
+        assertThat(own.get(MESSAGES - 1).get("content").asText()).isEqualTo("exportada " + (MESSAGES - 1));
+    }
+
+    private UUID author() {
+        var username = "export-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        return userCache.findByUsername(username).orElseThrow().userId();
+    }
+
+    private static JwtAuthenticationToken token(UUID userId) {
+        return new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userId.toString())
+                .claim("scope", "basic")
+                .build());
+    }
+}
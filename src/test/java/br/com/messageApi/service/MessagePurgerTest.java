@@ -0,0 +1,112 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.dto.CreateMessagetDto;
+import br.com.messageApi.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Moderação: a remoção lógica das mensagens de um autor é um único UPDATE e o expurgo apaga as linhas em blocos
+// por chave primária, sem DELETE ... LIMIT
+@SpringBootTest(properties = {
+        "messages.purge.chunk-size=7",
+        "messages.purge.interval-ms=3600000"
+})
+class MessagePurgerTest {
+
+    private static final int MESSAGES = 20;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessagePurger messagePurger;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    void softDeletesInOneStatementAndPurgesInChunks() throws Exception {
+        var userId = author();
+        var token = token(userId);
+        var dtos = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < MESSAGES; i++) {
+            dtos.add(new CreateMessagetDto("moderada " + i));
+        }
+        messageService.cadastrarMensagens(dtos, token);
+        assertThat(searchIndex.search("moderada", MESSAGES)).hasSize(MESSAGES);
+
+        var removed = new int[1];
+        var statements = SqlStatementCounter.capture(() -> removed[0] = messageService.removerMensagensDoUsuario(userId));
+
+        assertThat(removed[0]).isEqualTo(MESSAGES);
+        assertThat(statements).filteredOn(sql -> sql.startsWith("update tb_messages")).hasSize(1);
+        assertThat(statements).noneMatch(sql -> sql.startsWith("select") && sql.contains("tb_messages"));
+        assertThat(messageService.listarMensagensDoUsuario(userId, null, 50).feedItens()).isEmpty();
+        assertThat(messageService.buscarMensagens("moderada", 10).feedItens()).isEmpty();
+
+        var purge = SqlStatementCounter.capture(messagePurger::purge);
+
+        assertThat(messageRepository.countDeleted()).isZero();
+        assertThat(purge).filteredOn(sql -> sql.startsWith("delete from tb_messages"))
+                .hasSizeGreaterThanOrEqualTo(3)
+                .noneMatch(sql -> sql.contains("limit"));
+        assertThat(searchIndex.search("moderada", MESSAGES)).isEmpty();
+    }
+
+    // Antes do expurgo o índice ainda tem os ids removidos logicamente: a busca os descarta e completa a página com os seguintes
+    @Test
+    void searchRefillsPageAfterModerationDelete() {
+        var kept = author();
+        var keptDtos = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < 5; i++) {
+            keptDtos.add(new CreateMessagetDto("revisada mantida " + i));
+        }
+        messageService.cadastrarMensagens(keptDtos, token(kept));
+
+        var removed = author();
+        var removedDtos = new ArrayList<CreateMessagetDto>();
+        for (int i = 0; i < MESSAGES; i++) {
+            removedDtos.add(new CreateMessagetDto("revisada removida " + i));
+        }
+        messageService.cadastrarMensagens(removedDtos, token(removed));
+
+        messageService.removerMensagensDoUsuario(removed);
+
+        var page = messageService.buscarMensagens("revisada", 5).feedItens();
+        assertThat(page).hasSize(5).allMatch(item -> item.content().startsWith("revisada mantida"));
+        // Os ids removidos saíram do índice na própria busca
+        assertThat(searchIndex.search("removida", MESSAGES)).isEmpty();
+    }
+
+    private UUID author() {
+        var username = "purge-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        return userCache.findByUsername(username).orElseThrow().userId();
+    }
+
+    private static JwtAuthenticationToken token(UUID userId) {
+        return new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(userId.toString())
+                .claim("scope", "basic")
+                .build());
+    }
+}
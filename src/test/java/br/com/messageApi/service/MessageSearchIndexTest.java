@@ -0,0 +1,122 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.MessageContentDto;
+import br.com.messageApi.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageSearchIndexTest {
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+
+    private final MessageSearchIndex index = new MessageSearchIndex(
+            messageRepository, taskScheduler, 1000, Duration.ofSeconds(5), Duration.ofSeconds(12));
+
+    @Test
+    void removedIdsAreSkippedAndReAddedIdsReturn() {
+        emptyTable();
+        index.start();
+
+        LongStream.rangeClosed(1, 1000).forEach(id -> index.add(id, (id % 2 == 0 ? "par " : "ímpar ") + "mensagem"));
+
+        // Remove mais da metade dos pares, o que força a compactação da lista de "par"
+        LongStream.rangeClosed(1, 1000).filter(id -> id % 2 == 0 && id > 200).forEach(index::remove);
+
+        assertThat(index.search("par mensagem", 1000)).hasSize(100).allMatch(id -> id <= 200);
+        assertThat(index.search("impar", 1000)).hasSize(500);
+        assertThat(index.search("mensagem", 3)).containsExactly(999L, 997L, 995L);
+
+        index.add(400, "par de novo");
+        index.remove(2);
+        assertThat(index.search("par", 2)).containsExactly(400L, 200L);
+        assertThat(index.search("par", 1000)).hasSize(100).doesNotContain(2L);
+
+        LongStream.rangeClosed(1, 1000).forEach(index::remove);
+        index.remove(400);
+        assertThat(index.search("mensagem", 10)).isEmpty();
+        assertThat(index.search("par", 10)).isEmpty();
+    }
+
+    // Resultado de várias palavras igual ao de uma busca linear, com remoções espalhadas e limite menor que o total
+    @Test
+    void multiTermSearchMatchesLinearScan() {
+        emptyTable();
+        index.start();
+
+        var random = new Random(42);
+        var words = List.of("alfa", "beta", "gama", "delta");
+        var contents = new TreeMap<Long, String>();
+        for (long id = 1; id <= 5000; id++) {
+            var content = words.stream().filter(word -> random.nextInt(3) == 0).collect(Collectors.joining(" "));
+            contents.put(id, content);
+            index.add(id, content);
+        }
+        for (long id = 1; id <= 5000; id += 7) {
+            contents.remove(id);
+            index.remove(id);
+        }
+
+        var expected = contents.descendingMap().entrySet().stream()
+                .filter(entry -> entry.getValue().contains("alfa") && entry.getValue().contains("gama"))
+                .map(Map.Entry::getKey)
+                .limit(25)
+                .toList();
+
+        assertThat(index.search("gama alfa", 25)).isEqualTo(expected);
+    }
+
+    @Test
+    void failedRebuildIsRetriedWithBackoff() {
+        when(messageRepository.findMinMessageId())
+                .thenThrow(new DataAccessResourceFailureException("banco indisponível"))
+                .thenThrow(new DataAccessResourceFailureException("banco indisponível"))
+                .thenReturn(1L);
+        when(messageRepository.findMaxMessageId()).thenReturn(1L);
+        when(messageRepository.findContentRange(anyLong(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(new MessageContentDto(1, "primeira mensagem")));
+
+        var start = Instant.now();
+        index.start();
+        assertThat(index.isReady()).isFalse();
+
+        var retry = ArgumentCaptor.forClass(Runnable.class);
+        var at = ArgumentCaptor.forClass(Instant.class);
+        verify(taskScheduler).schedule(retry.capture(), at.capture());
+        assertThat(Duration.between(start, at.getValue())).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(6));
+
+        retry.getValue().run();
+        verify(taskScheduler, times(2)).schedule(retry.capture(), at.capture());
+        assertThat(Duration.between(start, at.getValue())).isBetween(Duration.ofSeconds(10), Duration.ofSeconds(11));
+        assertThat(index.isReady()).isFalse();
+
+        retry.getValue().run();
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("primeira", 10)).containsExactly(1L);
+    }
+
+    private void emptyTable() {
+        when(messageRepository.findMinMessageId()).thenReturn(null);
+        when(messageRepository.findMaxMessageId()).thenReturn(null);
+    }
+}
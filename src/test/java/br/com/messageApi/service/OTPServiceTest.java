@@ -0,0 +1,76 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.config.JwtKeyStore;
+import br.com.messageApi.config.OtpTokens;
+import br.com.messageApi.entities.UsedOtp;
+import br.com.messageApi.repository.UsedOtpRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cada token de "esqueci a senha" é aceito uma única vez, também quando reapresentado a outro nó (tb_used_otps)
+@SpringBootTest
+class OTPServiceTest {
+
+    @Autowired
+    private OTPService otpService;
+
+    @Autowired
+    private OtpTokens otpTokens;
+
+    @Autowired
+    private JwtKeyStore jwtKeyStore;
+
+    @Autowired
+    private UsedOtpRepository usedOtpRepository;
+
+    @Test
+    void tokenIsAcceptedOnlyOnce() {
+        var generated = otpService.generateOtp("otp@example.com");
+        var token = generated.get("token");
+        var otp = generated.get("otp");
+
+        // Um código errado não consome o token
+        assertThat(otpService.validateOtp(token, otp + "0")).containsEntry("valid", false);
+
+        assertThat(otpService.validateOtp(token, otp))
+                .containsEntry("valid", true)
+                .containsEntry("email", "otp@example.com");
+        assertThat(otpService.validateOtp(token, otp))
+                .containsEntry("valid", false)
+                .containsEntry("error", "Token already used");
+
+        var jti = otpTokens.parseToken(token).getId();
+        assertThat(usedOtpRepository.existsById(jti)).isTrue();
+    }
+
+    @Test
+    void replayOnAnotherNodeIsRejected() {
+        // Outra instância com o mesmo banco faz o papel de um segundo nó
+        var otherNode = new OtpTokens(jwtKeyStore, usedOtpRepository, new SimpleMeterRegistry());
+        var token = otpTokens.createToken("node@example.com", "123456");
+
+        assertThat(otpTokens.markUsed(otpTokens.parseToken(token))).isTrue();
+        assertThat(otherNode.markUsed(otherNode.parseToken(token))).isFalse();
+        assertThat(otpTokens.markUsed(otpTokens.parseToken(token))).isFalse();
+    }
+
+    @Test
+    void expiredEntriesAreRemoved() {
+        var expired = UUID.randomUUID().toString();
+        var live = UUID.randomUUID().toString();
+        usedOtpRepository.saveAndFlush(new UsedOtp(expired, Instant.now().minusSeconds(1)));
+        usedOtpRepository.saveAndFlush(new UsedOtp(live, Instant.now().plusSeconds(300)));
+
+        otpTokens.evictExpired();
+
+        assertThat(usedOtpRepository.existsById(expired)).isFalse();
+        assertThat(usedOtpRepository.existsById(live)).isTrue();
+    }
+}
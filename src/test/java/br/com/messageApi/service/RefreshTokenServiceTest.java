@@ -0,0 +1,92 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rotação de refresh tokens: reuso revoga a família, a família não passa de max-lifetime e os usados são removidos após a janela
+@SpringBootTest(properties = {
+        "jwt.refresh.ttl=14d",
+        "jwt.refresh.max-lifetime=1h",
+        "jwt.refresh.reuse-detection-window=0s"
+})
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    void reusedTokenRevokesFamily() {
+        var userId = user();
+        var first = refreshTokenService.issue(userId);
+        var second = refreshTokenService.rotate(first).refreshToken();
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(first)).isInstanceOf(BadCredentialsException.class);
+
+        // O token legítimo mais recente também deixa de valer
+        assertThatThrownBy(() -> refreshTokenService.rotate(second)).isInstanceOf(BadCredentialsException.class);
+        assertThat(refreshTokenRepository.findAll()).noneMatch(token -> token.getUser().getUserId().equals(userId));
+    }
+
+    @Test
+    void rotationDoesNotExtendFamilyPastMaxLifetime() {
+        var userId = user();
+        var token = refreshTokenService.issue(userId);
+        for (int i = 0; i < 3; i++) {
+            token = refreshTokenService.rotate(token).refreshToken();
+        }
+
+        var family = refreshTokenRepository.findAll().stream()
+                .filter(row -> row.getUser().getUserId().equals(userId))
+                .toList();
+
+        assertThat(family).hasSize(4);
+        var familyIssuedAt = family.get(0).getFamilyIssuedAt();
+        assertThat(family).allSatisfy(row -> {
+            assertThat(row.getFamilyIssuedAt()).isEqualTo(familyIssuedAt);
+            assertThat(row.getExpiresAt()).isBeforeOrEqualTo(familyIssuedAt.plus(Duration.ofHours(1)));
+        });
+    }
+
+    @Test
+    void cleanupRemovesUsedTokensPastReuseWindow() throws Exception {
+        var userId = user();
+        var first = refreshTokenService.issue(userId);
+        var second = refreshTokenService.rotate(first).refreshToken();
+        Thread.sleep(5);
+
+        refreshTokenService.deleteExpired();
+
+        var remaining = refreshTokenRepository.findAll().stream()
+                .filter(row -> row.getUser().getUserId().equals(userId))
+                .toList();
+        assertThat(remaining).hasSize(1);
+        assertThat(remaining.get(0).getUsedAt()).isNull();
+
+        // O token atual da família continua valendo
+        assertThat(refreshTokenService.rotate(second).userId()).isEqualTo(userId);
+    }
+
+    private UUID user() {
+        var username = "refresh-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        return userCache.findByUsername(username).orElseThrow().userId();
+    }
+}
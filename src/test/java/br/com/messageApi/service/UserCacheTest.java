@@ -0,0 +1,70 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.SqlStatementCounter;
+import br.com.messageApi.entities.Role;
+import br.com.messageApi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// O snapshot em cache reflete a troca de roles (UserService.alterarRoles) e a troca de senha (UserCacheListener) logo após o commit
+@SpringBootTest(properties = "users.cache.ttl=1h")
+class UserCacheTest {
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void roleChangeInvalidatesSnapshot() {
+        var userId = user();
+        assertThat(userCache.findById(userId).orElseThrow().roles()).containsExactly("basic");
+
+        userService.alterarRoles(userId, Set.of(Role.Values.ADMIN, Role.Values.BASIC));
+
+        var snapshot = userCache.findById(userId).orElseThrow();
+        assertThat(snapshot.roles()).containsExactlyInAnyOrder("admin", "basic");
+        assertThat(userCache.findByUsername(snapshot.username()).orElseThrow().roles()).contains("admin");
+    }
+
+    @Test
+    void passwordChangeInvalidatesSnapshot() {
+        var userId = user();
+        assertThat(userCache.findById(userId).orElseThrow().passwordHash()).isEqualTo("hash");
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().setPassword("novo-hash"));
+
+        assertThat(userCache.findById(userId).orElseThrow().passwordHash()).isEqualTo("novo-hash");
+    }
+
+    @Test
+    void cachedSnapshotIsServedWithoutQuery() throws Exception {
+        var userId = user();
+        userCache.findById(userId);
+
+        var statements = SqlStatementCounter.capture(() -> userCache.findById(userId));
+
+        assertThat(statements).isEmpty();
+    }
+
+    private UUID user() {
+        var username = "cache-" + UUID.randomUUID();
+        userService.cadastrarUsuario(username, "hash");
+        return userCache.findByUsername(username).orElseThrow().userId();
+    }
+}
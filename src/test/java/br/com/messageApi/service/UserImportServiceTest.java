@@ -0,0 +1,199 @@
+package br.com.messageApi.service;
+
+import br.com.messageApi.dto.UserImportFailureDto;
+import br.com.messageApi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Importação de usuários de ponta a ponta: leitura de CSV, JSON e NDJSON, descarte de repetidos (na entrada e no banco),
+// gravação linha a linha quando o lote falha, user_id gravado no formato do mapeamento de UUID do Hibernate e login dos importados
+// Blocos de 4 linhas para que cada entrada atravesse mais de um bloco
+@SpringBootTest(properties = {"users.import.chunk-size=4", "rate-limit.enabled=false"})
+@AutoConfigureMockMvc
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Test
+    void importsCsvAndReportsRejectedRows() throws Exception {
+        var p = prefix();
+        userService.cadastrarUsuario(p + "existente", "hash");
+
+        var csv = """
+                username,password
+                %1$sana,senha-ana
+                %1$sbruno,senha-bruno
+
+                %1$sANA,outra
+                %1$sexistente,senha
+                sem-virgula
+                %1$scarla,
+                %1$sdiego,senha,com,virgulas
+                %1$seva,senha-eva
+                """.formatted(p);
+
+        var response = userImportService.importarCsv(stream(csv));
+
+        assertThat(response.imported()).isEqualTo(4);
+        assertThat(response.rejected()).isEqualTo(4);
+        assertThat(response.failures()).extracting(UserImportFailureDto::row, UserImportFailureDto::error).containsExactly(
+                tuple(5, "Username repetido na importação"),
+                tuple(6, "Username já cadastrado"),
+                tuple(7, "Linha inválida, use o formato username,password"),
+                tuple(8, "O campo 'password' é obrigatório"));
+
+        // A senha é tudo o que vem depois da primeira vírgula
+        login(p + "diego", "senha,com,virgulas");
+        login(p + "ana", "senha-ana");
+        assertStoredAsHibernateUuid(p + "eva");
+    }
+
+    @Test
+    void importsJsonArrayAndNdjson() throws Exception {
+        var p = prefix();
+
+        var array = """
+                [{"username": "%1$sfabio", "password": "senha-fabio"},
+                 {"username": "%1$sgabi"},
+                 null,
+                 {"username": "%1$sFABIO", "password": "outra"},
+                 {"username": "%1$shelio", "password": "senha-helio"},
+                 {"username": {"nome": "errado"}, "password": "x"}]
+                """.formatted(p);
+
+        var fromArray = userImportService.importarJson(stream(array));
+
+        assertThat(fromArray.imported()).isEqualTo(2);
+        assertThat(fromArray.failures()).extracting(UserImportFailureDto::row, UserImportFailureDto::error).containsExactly(
+                tuple(2, "O campo 'password' é obrigatório"),
+                tuple(3, "Item inválido, use {\"username\", \"password\"}"),
+                tuple(4, "Username repetido na importação"),
+                tuple(6, "Item inválido, use {\"username\", \"password\"}"));
+
+        var ndjson = """
+                {"username": "%1$sfabio", "password": "de novo"}
+                {"username": "%1$sivo", "password": "senha-ivo"}
+                {"username": "%1$sjade", "password": "senha-jade"}
+                {"username": "%1$sjade", "password": "repetida"}
+                {"username": "%1$skiko", "password": "senha-kiko"}
+                {"username": "%1$slara", "password": "senha-lara"}
+                {"username": "%1$squebrado",
+                """.formatted(p);
+
+        var fromNdjson = userImportService.importarJson(stream(ndjson));
+
+        assertThat(fromNdjson.imported()).isEqualTo(4);
+        assertThat(fromNdjson.failures()).extracting(UserImportFailureDto::row, UserImportFailureDto::error).containsExactly(
+                tuple(1, "Username já cadastrado"),
+                tuple(4, "Username repetido na importação"),
+                tuple(7, "JSON inválido, leitura interrompida"));
+
+        login(p + "helio", "senha-helio");
+        login(p + "lara", "senha-lara");
+        assertStoredAsHibernateUuid(p + "kiko");
+    }
+
+    // Simula outra requisição cadastrando um dos usernames entre a consulta de existentes e o insert em lote:
+    // o lote falha no índice único e o bloco é regravado linha a linha, rejeitando só a linha em conflito
+    @Test
+    void fallsBackToRowByRowWhenTheBatchFails() throws Exception {
+        var p = prefix();
+        var concurrent = p + "concorrente";
+        var registered = new AtomicBoolean();
+
+        // A consulta de existentes "não vê" o cadastro concorrente, feito logo depois dela
+        doAnswer(invocation -> {
+            Collection<String> usernames = invocation.getArgument(0);
+            if (usernames.contains(concurrent) && registered.compareAndSet(false, true)) {
+                userService.cadastrarUsuario(concurrent, "hash");
+            }
+            return List.of();
+        }).when(userRepository).findExistingUsernames(any());
+
+        var csv = """
+                %1$smaria,senha-maria
+                %1$sconcorrente,senha
+                %1$snina,senha-nina
+                %1$sotto,senha-otto
+                """.formatted(p);
+
+        var response = userImportService.importarCsv(stream(csv));
+
+        assertThat(response.imported()).isEqualTo(3);
+        assertThat(response.failures()).extracting(UserImportFailureDto::row, UserImportFailureDto::error)
+                .containsExactly(tuple(2, "Username já cadastrado"));
+
+        login(p + "maria", "senha-maria");
+        login(p + "otto", "senha-otto");
+        // O cadastro concorrente ficou intacto
+        assertThat(userCache.findByUsername(concurrent).orElseThrow().passwordHash()).isEqualTo("hash");
+    }
+
+    // O JDBC grava user_id como BINARY(16); o mesmo id precisa ser lido pelo Hibernate e encontrado pelos bytes
+    private void assertStoredAsHibernateUuid(String username) {
+        var userId = userRepository.findByUsername(username).orElseThrow().getUserId();
+
+        var raw = jdbcTemplate.queryForObject("select user_id from tb_users where username = ?", byte[].class, username);
+        assertThat(raw).isEqualTo(ByteBuffer.allocate(16)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .array());
+        assertThat(userCache.findById(userId).orElseThrow().username()).isEqualTo(username);
+    }
+
+    private void login(String username, String password) throws Exception {
+        var body = """
+                {"username": "%s", "password": "%s"}
+                """.formatted(username, password);
+
+        mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty());
+    }
+
+    private static String prefix() {
+        return "import-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}